@@ -0,0 +1,146 @@
+package com.progresssoft.docaccess;
+
+import com.progresssoft.docaccess.readmodel.AccessibleDocumentsCheckReport;
+import com.progresssoft.docaccess.readmodel.AccessibleDocumentsChecker;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.assertj.MockMvcTester;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("accessible_documents read model IT")
+public class AccessibleDocumentsIT extends AbstractIT {
+
+    @Autowired private MockMvcTester mvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private AccessibleDocumentsChecker checker;
+    @Autowired private DocumentRepository documentRepository;
+    @Autowired private DocumentAccessRepository documentAccessRepository;
+
+    private String documentId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var response = mvc.post()
+                .uri("/documents")
+                .header("X-User", "admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "name": "Test Document",
+                      "content": "Test Content",
+                      "fileType": "pdf",
+                      "accessibleUsers": [
+                        { "username": "user1", "permission": "READ" },
+                        { "username": "user2", "permission": "DELETE" }
+                      ]
+                    }
+                    """)
+                .exchange();
+
+        documentId = objectMapper.readTree(response.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentAccessRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    private List<Integer> permissionsOf(String username) {
+        return jdbcTemplate.queryForList(
+                "SELECT permission FROM accessible_documents WHERE username = ? AND document_id = ?::uuid ORDER BY permission",
+                Integer.class,
+                username,
+                documentId
+        );
+    }
+
+    @Test
+    void givenCreatedDocument_thenOneRowPerUserAndPermissionBit() {
+        assertThat(permissionsOf("user1")).containsExactly(1);
+        assertThat(permissionsOf("user2")).containsExactly(4);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT name FROM accessible_documents WHERE username = 'user1'", String.class))
+                .isEqualTo("Test Document");
+    }
+
+    @Test
+    void givenGrantRevokeAndDelete_thenReadModelFollowsInTheSameTransaction() {
+        mvc.post()
+                .uri("/documents/{id}/grant", documentId)
+                .header("X-User", "admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "username": "user1", "permission": "WRITE" }
+                        """)
+                .assertThat()
+                .hasStatus(200);
+        assertThat(permissionsOf("user1")).containsExactly(1, 2);
+
+        mvc.delete()
+                .uri("/documents/{id}/grants/{username}", documentId, "user1")
+                .header("X-User", "admin")
+                .assertThat()
+                .hasStatus(200);
+        assertThat(permissionsOf("user1")).isEmpty();
+
+        mvc.delete()
+                .uri("/documents/{id}", documentId)
+                .header("X-User", "user2")
+                .assertThat()
+                .hasStatus(204);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM accessible_documents", Long.class)).isZero();
+    }
+
+    @Test
+    void givenReadModel_whenListingDocuments_thenPageComesFromIt() {
+        jdbcTemplate.update("UPDATE accessible_documents SET name = 'From read model' WHERE username = 'user1'");
+
+        mvc.get()
+                .uri("/documents")
+                .header("X-User", "user1")
+                .assertThat()
+                .hasStatus(200)
+                .bodyJson()
+                .hasPathSatisfying("$.documents[0].name", name -> name.assertThat().isEqualTo("From read model"));
+    }
+
+    @Test
+    void givenDrift_whenCheck_thenReportsItAndRepairsOnlyWhenAsked() {
+        jdbcTemplate.update("DELETE FROM accessible_documents WHERE username = 'user1'");
+        jdbcTemplate.update("UPDATE accessible_documents SET name = 'Stale' WHERE username = 'user2'");
+
+        AccessibleDocumentsCheckReport report = checker.check(false);
+
+        assertThat(report.expected()).isEqualTo(2);
+        assertThat(report.missing()).isEqualTo(2);
+        assertThat(report.stale()).isEqualTo(1);
+        assertThat(report.repaired()).isFalse();
+        assertThat(permissionsOf("user1")).isEmpty();
+
+        assertThat(checker.check(true).repaired()).isTrue();
+
+        assertThat(checker.check(false).consistent()).isTrue();
+        assertThat(permissionsOf("user1")).containsExactly(1);
+    }
+
+    @Test
+    void givenConsistentModel_whenCheckWithRepair_thenWritesNothing() {
+        AccessibleDocumentsCheckReport report = checker.check(true);
+
+        assertThat(report.consistent()).isTrue();
+        assertThat(report.repaired()).isFalse();
+    }
+}
@@ -0,0 +1,182 @@
+package com.progresssoft.docaccess;
+
+import com.progresssoft.docaccess.bulk.AclDumpFormat;
+import com.progresssoft.docaccess.bulk.AclLoadReport;
+import com.progresssoft.docaccess.bulk.AclLoader;
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.assertj.MockMvcTester;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("AclLoader IT")
+public class AclLoaderIT extends AbstractIT {
+
+    @Autowired private AclLoader aclLoader;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private MockMvcTester mvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private DocumentRepository documentRepository;
+    @Autowired private DocumentAccessRepository documentAccessRepository;
+
+    private String first;
+    private String second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        first = createDocument("First", "user2", Permission.WRITE);
+        second = createDocument("Second", "user2", Permission.READ);
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentAccessRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    private String createDocument(String name, String username, Permission permission) throws Exception {
+        String request = """
+            {
+              "name": "%s",
+              "content": "Content",
+              "fileType": "txt",
+              "accessibleUsers": [ { "username": "%s", "permission": "%s" } ]
+            }
+            """.formatted(name, username, permission);
+
+        var response = mvc.post()
+                .uri("/documents")
+                .header("X-User", "admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(request)
+                .exchange();
+        return objectMapper.readTree(response.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    private Integer permissionsOf(String documentId, String username) {
+        return jdbcTemplate.query(
+                "SELECT permissions FROM document_accesses WHERE document_id = ?::uuid AND username = ?",
+                resultSet -> resultSet.next() ? resultSet.getInt(1) : null,
+                documentId,
+                username
+        );
+    }
+
+    @Test
+    void givenCsvDump_whenLoad_thenMergesRowsIntoExistingGrantsAndSkipsInvalidOnes() {
+        String dump = String.join("\n",
+                "document_id,username,permissions",
+                first + ",user1,1",
+                first + ",user1,2",
+                first + ",user2,1",
+                second + ",user3,4",
+                UUID.randomUUID() + ",user1,1",
+                first + ",user4,0",
+                first + ",user4,8",
+                first + ",,1",
+                first + ",user5,"
+        ) + "\n";
+
+        AclLoadReport report = aclLoader.load(
+                new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)),
+                AclDumpFormat.CSV_WITH_HEADER
+        );
+
+        assertThat(report.copied()).isEqualTo(9);
+        assertThat(report.merged()).isEqualTo(3);
+        assertThat(report.skipped()).isEqualTo(5);
+        assertThat(permissionsOf(first, "user1")).isEqualTo(Permission.READ.getMask() | Permission.WRITE.getMask());
+        assertThat(permissionsOf(first, "user2")).isEqualTo(Permission.WRITE.getMask() | Permission.READ.getMask());
+        assertThat(permissionsOf(second, "user3")).isEqualTo(Permission.DELETE.getMask());
+        assertThat(permissionsOf(first, "user4")).isNull();
+        assertThat(permissionsOf(first, "user5")).isNull();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT id FROM document_accesses WHERE username = 'user3'", UUID.class).version()).isEqualTo(7);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM acl_user_ids WHERE username = 'user3'", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    void givenBinaryDump_whenLoad_thenMergesRows() {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut("""
+                        COPY (SELECT '%s'::uuid, 'user1'::varchar, 1
+                              UNION ALL SELECT '%s'::uuid, 'user1'::varchar, 5)
+                        TO STDOUT WITH (FORMAT binary)
+                        """.formatted(first, second), dump);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        AclLoadReport report = aclLoader.load(new ByteArrayInputStream(dump.toByteArray()), AclDumpFormat.BINARY);
+
+        assertThat(report.merged()).isEqualTo(2);
+        assertThat(permissionsOf(first, "user1")).isEqualTo(Permission.READ.getMask());
+        assertThat(permissionsOf(second, "user1")).isEqualTo(Permission.READ.getMask() | Permission.DELETE.getMask());
+    }
+
+    @Test
+    void givenDeniedUser_whenLoadGrantsAccess_thenNextReadIsAllowed() {
+        mvc.get()
+                .uri("/documents/{id}", first)
+                .header("X-User", "user5")
+                .assertThat()
+                .hasStatus(403);
+
+        aclLoader.load(
+                new ByteArrayInputStream((first + ",user5,1\n").getBytes(StandardCharsets.UTF_8)),
+                AclDumpFormat.CSV
+        );
+
+        mvc.get()
+                .uri("/documents/{id}", first)
+                .header("X-User", "user5")
+                .assertThat()
+                .hasStatus(200);
+        mvc.post()
+                .uri("/documents/access-check")
+                .header("X-User", "user5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    { "permission": "READ", "documentIds": ["%s", "%s"] }
+                    """.formatted(first, second))
+                .assertThat()
+                .hasStatus(200)
+                .bodyJson()
+                .hasPathSatisfying("$.accessibleIds.length()", size -> size.assertThat().isEqualTo(1));
+    }
+
+    @Test
+    void givenMalformedDump_whenLoad_thenNothingIsMerged() {
+        String dump = first + ",user6,1\nnot-a-uuid,user6,1\n";
+
+        assertThatThrownBy(() -> aclLoader.load(
+                new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)),
+                AclDumpFormat.CSV
+        )).isInstanceOf(RuntimeException.class);
+
+        assertThat(permissionsOf(first, "user6")).isNull();
+    }
+}
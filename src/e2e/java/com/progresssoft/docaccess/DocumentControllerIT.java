@@ -1,7 +1,13 @@
 package com.progresssoft.docaccess;
 
+import com.progresssoft.docaccess.controller.DocumentController;
+import com.progresssoft.docaccess.enums.Permission;
 import com.progresssoft.docaccess.repository.DocumentAccessRepository;
 import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.storage.ContentStore;
+import com.progresssoft.docaccess.storage.StoredContent;
+import com.progresssoft.docaccess.support.SqlStatementBudget;
+import com.progresssoft.docaccess.util.Digests;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,7 +21,21 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
 import tools.jackson.databind.ObjectMapper;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -27,6 +47,7 @@ public class DocumentControllerIT extends AbstractIT {
     @Autowired private ObjectMapper objectMapper;
     @Autowired private DocumentRepository documentRepository;
     @Autowired private DocumentAccessRepository documentAccessRepository;
+    @Autowired private ContentStore contentStore;
 
     private String documentId;
 
@@ -66,6 +87,28 @@ public class DocumentControllerIT extends AbstractIT {
     @DisplayName("POST /documents")
     class CreateDocument {
 
+        @Test
+        void givenValidRequest_whenCreateDocument_thenIdsAreTimeOrdered() throws Exception {
+            String secondId = objectMapper.readTree(mvc.post()
+                    .uri("/documents")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                        { "name": "Second", "content": "Content", "fileType": "txt",
+                          "accessibleUsers": [ { "username": "user1", "permission": "READ" } ] }
+                        """)
+                    .exchange()
+                    .getResponse()
+                    .getContentAsString()).get("id").asText();
+
+            assertThat(UUID.fromString(documentId).version()).isEqualTo(7);
+            assertThat(UUID.fromString(secondId).version()).isEqualTo(7);
+            assertThat(documentAccessRepository.findAll())
+                    .allSatisfy(access -> assertThat(access.getId().version()).isEqualTo(7));
+            // PostgreSQL compares uuids bytewise, so later ids sort after earlier ones
+            assertThat(secondId.compareTo(documentId)).isPositive();
+        }
+
         @Test
         void givenInvalidRequest_whenCreateDocument_thenReturnsBadRequest() {
             String invalidRequest = """
@@ -142,6 +185,79 @@ public class DocumentControllerIT extends AbstractIT {
         }
     }
 
+    @Nested
+    @DisplayName("POST /documents/upload")
+    class UploadDocument {
+
+        @Test
+        void givenRawBody_whenUploadDocument_thenStoresItAndGrantsAccess() throws Exception {
+            byte[] body = "streamed line\n".repeat(100_000).getBytes(StandardCharsets.UTF_8);
+
+            var uploaded = mvc.post()
+                    .uri("/documents/upload?name={name}&fileType=txt&access=user1:READ&access=user2:DELETE", "Big upload")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content(body)
+                    .exchange();
+
+            assertThat(uploaded).hasStatus(201)
+                    .bodyJson()
+                    .hasPathSatisfying("$.size", size -> size.assertThat().isEqualTo(body.length))
+                    .hasPathSatisfying("$.hash", hash -> hash.assertThat()
+                            .isEqualTo(Digests.sha256Hex(new String(body, StandardCharsets.UTF_8))));
+            String id = objectMapper.readTree(uploaded.getResponse().getContentAsString()).get("id").asText();
+
+            var content = mvc.get()
+                    .uri("/documents/{id}/content", id)
+                    .header("X-User", "user1")
+                    .exchange();
+            assertThat(content).hasStatus(200);
+            assertThat(content.getResponse().getContentAsByteArray()).isEqualTo(body);
+
+            mvc.get()
+                    .uri("/documents/{id}/content", id)
+                    .header("X-User", "user3")
+                    .assertThat()
+                    .hasStatus(403);
+        }
+
+        @Test
+        void givenMalformedAccess_whenUploadDocument_thenReturnsBadRequest() {
+            mvc.post()
+                    .uri("/documents/upload?name=Doc&fileType=txt&access=user1-READ")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content("body".getBytes(StandardCharsets.UTF_8))
+                    .assertThat()
+                    .hasStatus(400)
+                    .bodyJson()
+                    .hasPathSatisfying("$.message", msg -> msg.assertThat().isEqualTo("Validation failed"));
+        }
+
+        @Test
+        void givenEmptyBody_whenUploadDocument_thenReturnsBadRequest() {
+            mvc.post()
+                    .uri("/documents/upload?name=Doc&fileType=txt")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .assertThat()
+                    .hasStatus(400)
+                    .bodyJson()
+                    .hasPathSatisfying("$.message", msg -> msg.assertThat().isEqualTo("content is required"));
+        }
+
+        @Test
+        void givenNonAdmin_whenUploadDocument_thenReturnsForbidden() {
+            mvc.post()
+                    .uri("/documents/upload?name=Doc&fileType=txt")
+                    .header("X-User", "user1")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content("body".getBytes(StandardCharsets.UTF_8))
+                    .assertThat()
+                    .hasStatus(403);
+        }
+    }
+
     @Nested
     @DisplayName("GET /documents")
     class GetAllDocuments {
@@ -168,6 +284,67 @@ public class DocumentControllerIT extends AbstractIT {
                     .hasPathSatisfying("$.length()", len -> len.assertThat().isEqualTo(1));
         }
 
+        @Test
+        void givenAnyUser_whenGetAllDocuments_thenReturnsMetadataWithoutContent() {
+            mvc.get()
+                    .uri("/documents")
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .doesNotHavePath("$[0].content")
+                    .hasPathSatisfying("$[0].name", name -> name.assertThat().isEqualTo("Test Document"))
+                    .hasPathSatisfying("$[0].createdBy", createdBy -> createdBy.assertThat().isEqualTo("admin"))
+                    .hasPathSatisfying("$[0].size", size -> size.assertThat().isEqualTo(12))
+                    .hasPathSatisfying("$[0].hash", hash -> hash.assertThat().isEqualTo(Digests.sha256Hex("Test Content")));
+        }
+
+        @Test
+        void givenPageSizeSmallerThanResult_whenGetAllDocuments_thenPagesWithCursor() {
+            mvc.post()
+                    .uri("/documents")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            {
+                              "name": "Second Document",
+                              "content": "Second Content",
+                              "fileType": "txt",
+                              "accessibleUsers": [ { "username": "user1", "permission": "READ" } ]
+                            }
+                            """)
+                    .assertThat()
+                    .hasStatus(201);
+
+            var firstPage = mvc.get()
+                    .uri("/documents?size=1")
+                    .header("X-User", "user1")
+                    .exchange();
+            assertThat(firstPage).hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.length()", len -> len.assertThat().isEqualTo(1));
+            String cursor = firstPage.getResponse().getHeader(DocumentController.NEXT_CURSOR_HEADER);
+            assertThat(cursor).isNotBlank();
+
+            var secondPage = mvc.get()
+                    .uri("/documents?size=1&cursor={cursor}", cursor)
+                    .header("X-User", "user1")
+                    .exchange();
+            assertThat(secondPage).hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.length()", len -> len.assertThat().isEqualTo(1));
+            assertThat(secondPage.getResponse().getHeader(DocumentController.NEXT_CURSOR_HEADER)).isNull();
+        }
+
+        @Test
+        void givenInvalidCursor_whenGetAllDocuments_thenReturnsBadRequest() {
+            mvc.get()
+                    .uri("/documents?cursor=not-a-cursor")
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(400);
+        }
+
         @Test
         void givenUserWithNoPermission_whenGetAllDocuments_thenReturnsEmptyList() {
             mvc.get()
@@ -180,6 +357,111 @@ public class DocumentControllerIT extends AbstractIT {
         }
     }
 
+    @Nested
+    @DisplayName("GET /documents/export")
+    class ExportDocuments {
+
+        @Test
+        void givenUserWithReadPermission_whenExportDocuments_thenStreamsOneLinePerDocument() throws Exception {
+            var result = mvc.get()
+                    .uri("/documents/export")
+                    .header("X-User", "user1")
+                    .exchange();
+
+            assertThat(result).hasStatus(200)
+                    .hasContentTypeCompatibleWith(MediaType.APPLICATION_NDJSON);
+            var lines = result.getResponse().getContentAsString().lines().toList();
+            assertThat(lines).hasSize(1);
+            assertThat(objectMapper.readTree(lines.getFirst()).get("id").asText()).isEqualTo(documentId);
+            assertThat(objectMapper.readTree(lines.getFirst()).get("accessibleUsers").size()).isEqualTo(2);
+        }
+
+        @Test
+        void givenUserWithNoPermission_whenExportDocuments_thenStreamsNothing() throws Exception {
+            var result = mvc.get()
+                    .uri("/documents/export")
+                    .header("X-User", "user3")
+                    .exchange();
+
+            assertThat(result).hasStatus(200);
+            assertThat(result.getResponse().getContentAsString()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /documents/import")
+    class ImportDocuments {
+
+        @Test
+        void givenNdjson_whenImportDocuments_thenImportsValidLinesAndReportsInvalidOnes() throws Exception {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < 2_500; i++) {
+                body.append("""
+                        {"name":"Imported %d","content":"body %d","fileType":"txt","accessibleUsers":[{"username":"user1","permission":"READ"},{"username":"user1","permission":"WRITE"}]}
+                        """.formatted(i, i));
+            }
+            body.append("not json\n");
+            body.append("{\"name\":\"\",\"content\":\"x\",\"fileType\":\"txt\"}\n");
+
+            var result = mvc.post()
+                    .uri("/documents/import")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content(body.toString())
+                    .exchange();
+
+            assertThat(result).hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.imported", imported -> imported.assertThat().isEqualTo(2_500))
+                    .hasPathSatisfying("$.failed", failed -> failed.assertThat().isEqualTo(2))
+                    .hasPathSatisfying("$.grants", grants -> grants.assertThat().isEqualTo(2_500))
+                    .hasPathSatisfying("$.errors[0].line", line -> line.assertThat().isEqualTo(2_501))
+                    .hasPathSatisfying("$.errors[1].line", line -> line.assertThat().isEqualTo(2_502));
+            assertThat(documentRepository.count()).isEqualTo(2_501);
+
+            var page = mvc.get()
+                    .uri("/documents?size=500")
+                    .header("X-User", "user1")
+                    .exchange();
+            assertThat(page).hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.length()", size -> size.assertThat().isEqualTo(500));
+        }
+
+        @Test
+        void givenExport_whenImportDocuments_thenRoundTrips() throws Exception {
+            String exported = mvc.get()
+                    .uri("/documents/export")
+                    .header("X-User", "admin")
+                    .exchange()
+                    .getResponse()
+                    .getContentAsString();
+
+            mvc.post()
+                    .uri("/documents/import")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content(exported)
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.imported", imported -> imported.assertThat().isEqualTo(1));
+
+            assertThat(documentRepository.count()).isEqualTo(2);
+        }
+
+        @Test
+        void givenNonAdmin_whenImportDocuments_thenReturnsForbidden() {
+            mvc.post()
+                    .uri("/documents/import")
+                    .header("X-User", "user1")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("{}\n")
+                    .assertThat()
+                    .hasStatus(403);
+        }
+    }
+
     @Nested
     @DisplayName("GET /documents/{id}")
     class GetDocumentById {
@@ -215,6 +497,155 @@ public class DocumentControllerIT extends AbstractIT {
                     .assertThat()
                     .hasStatus(404);
         }
+
+        @Test
+        void givenCurrentETag_whenGetDocumentById_thenReturnsNotModified() {
+            String etag = mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .exchange()
+                    .getResponse()
+                    .getHeader("ETag");
+
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .header("If-None-Match", etag)
+                    .assertThat()
+                    .hasStatus(304)
+                    .hasHeader("ETag", etag)
+                    .body().isEmpty();
+        }
+
+        @Test
+        void givenNewGrant_whenGetDocumentById_thenETagChanges() {
+            String before = mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "admin")
+                    .exchange()
+                    .getResponse()
+                    .getHeader("ETag");
+
+            mvc.post()
+                    .uri("/documents/{id}/grant", documentId)
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                        { "username": "user3", "permission": "READ" }
+                        """)
+                    .assertThat()
+                    .hasStatus(200);
+
+            var after = mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "admin")
+                    .header("If-None-Match", before)
+                    .exchange();
+
+            assertThat(after).hasStatus(200);
+            assertThat(after.getResponse().getHeader("ETag")).isNotEqualTo(before);
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /documents/{id}/content")
+    class GetDocumentContent {
+
+        @Test
+        void givenUserWithReadPermission_whenGetContent_thenReturnsContent() {
+            mvc.get()
+                    .uri("/documents/{id}/content", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200)
+                    .hasContentTypeCompatibleWith(MediaType.TEXT_PLAIN)
+                    .hasBodyTextEqualTo("Test Content");
+        }
+
+        @Test
+        void givenCreatedDocument_whenStored_thenBodyLivesInContentStoreNotTable() {
+            var document = documentRepository.findById(UUID.fromString(documentId)).orElseThrow();
+
+            assertThat(document.getContent()).isNull();
+            assertThat(document.getContentHash()).isEqualTo(Digests.sha256Hex("Test Content"));
+            assertThat(contentStore.readString(new StoredContent(document.getContentHash(), document.getContentSize())))
+                    .isEqualTo("Test Content");
+        }
+
+        @Test
+        void givenCompressedTextDocument_whenClientAcceptsGzip_thenStoredBytesAreSentAsIs() throws Exception {
+            String body = "compressible line of text\n".repeat(200);
+            var created = mvc.post()
+                    .uri("/documents")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of(
+                            "name", "Notes", "content", body, "fileType", "txt")))
+                    .exchange();
+            String id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asText();
+
+            var gzipped = mvc.get()
+                    .uri("/documents/{id}/content", id)
+                    .header("X-User", "admin")
+                    .header("Accept-Encoding", "gzip")
+                    .exchange();
+
+            assertThat(gzipped).hasStatus(200).hasHeader("Content-Encoding", "gzip");
+            try (var input = new GZIPInputStream(new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))) {
+                assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+            }
+
+            mvc.get()
+                    .uri("/documents/{id}/content", id)
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(200)
+                    .doesNotContainHeader("Content-Encoding")
+                    .hasBodyTextEqualTo(body);
+        }
+
+        @Test
+        void givenContentHashETag_whenGetContent_thenReturnsNotModified() {
+            String hash = Digests.sha256Hex("Test Content");
+
+            mvc.get()
+                    .uri("/documents/{id}/content", documentId)
+                    .header("X-User", "user1")
+                    .header("If-None-Match", "\"" + hash + "\"")
+                    .assertThat()
+                    .hasStatus(304)
+                    .body().isEmpty();
+        }
+
+        @Test
+        void givenRange_whenGetContent_thenReturnsPartialContent() {
+            mvc.get()
+                    .uri("/documents/{id}/content", documentId)
+                    .header("X-User", "user1")
+                    .header("Range", "bytes=5-")
+                    .assertThat()
+                    .hasStatus(206)
+                    .hasHeader("Content-Range", "bytes 5-11/12")
+                    .hasBodyTextEqualTo("Content");
+        }
+
+        @Test
+        void givenUserWithoutReadPermission_whenGetContent_thenReturnsForbidden() {
+            mvc.get()
+                    .uri("/documents/{id}/content", documentId)
+                    .header("X-User", "user2")
+                    .assertThat()
+                    .hasStatus(403);
+        }
+
+        @Test
+        void givenNonExistingId_whenGetContent_thenReturnsNotFound() {
+            mvc.get()
+                    .uri("/documents/{id}/content", UUID.randomUUID())
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(404);
+        }
     }
 
     @Nested
@@ -230,6 +661,18 @@ public class DocumentControllerIT extends AbstractIT {
                     .hasStatus(204);
         }
 
+        @Test
+        void givenUserWithDeletePermission_whenDeleteDocument_thenCascadesToGrants() {
+            mvc.delete()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user2")
+                    .assertThat()
+                    .hasStatus(204);
+
+            assertThat(documentRepository.count()).isZero();
+            assertThat(documentAccessRepository.count()).isZero();
+        }
+
         @Test
         void givenUserWithNoPermission_whenDeleteDocument_thenReturnsForbidden() {
             mvc.delete()
@@ -253,49 +696,450 @@ public class DocumentControllerIT extends AbstractIT {
     }
 
     @Nested
-    @DisplayName("POST /documents/{id}/grant")
-    class GrantPermission {
+    @DisplayName("SQL statement budgets")
+    class StatementBudgets {
 
         @Test
-        void givenAdminUser_whenGrantPermission_thenReturnsOk() {
-            String request = """
-                    { "username": "user3", "permission": "READ" }
-                    """;
-
+        @SqlStatementBudget(4) // the document, one insert per grant, and the index interning the new document id
+        void givenAdmin_whenCreateDocument_thenInsertsDocumentAndGrants() {
             mvc.post()
-                    .uri("/documents/{id}/grant", documentId)
+                    .uri("/documents")
                     .header("X-User", "admin")
                     .contentType(MediaType.APPLICATION_JSON)
-                    .content(request)
+                    .content("""
+                            {
+                              "name": "Budget Document",
+                              "content": "Budget Content",
+                              "fileType": "txt",
+                              "accessibleUsers": [
+                                { "username": "user1", "permission": "READ" },
+                                { "username": "user2", "permission": "WRITE" }
+                              ]
+                            }
+                            """)
                     .assertThat()
-                    .hasStatus(200);
+                    .hasStatus(201);
         }
 
         @Test
-        void givenUserWithOnlyReadPermission_whenGrantPermission_thenReturnsForbidden() {
-            String request = """
-                    { "username": "user3", "permission": "READ" }
-                    """;
+        @SqlStatementBudget(1)
+        void givenAdmin_whenGetAllDocuments_thenUsesOneStatement() {
+            mvc.get()
+                    .uri("/documents")
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(200);
+        }
 
-            mvc.post()
-                    .uri("/documents/{id}/grant", documentId)
+        @Test
+        @SqlStatementBudget(1)
+        void givenUserWithReadPermission_whenGetAllDocuments_thenUsesOneStatement() {
+            mvc.get()
+                    .uri("/documents")
                     .header("X-User", "user1")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .content(request)
                     .assertThat()
-                    .hasStatus(403)
-                    .bodyJson()
-                    .hasPathSatisfying("$.message", msg ->
-                            msg.assertThat().isEqualTo("You don't have permission to grant access"));
+                    .hasStatus(200);
         }
 
         @Test
-        void givenNonExistingDocument_whenGrantPermission_thenReturnsNotFound() {
-            String request = """
-                    { "username": "user3", "permission": "READ" }
-                    """;
+        @SqlStatementBudget(2)
+        void givenUserWithReadPermission_whenExportDocuments_thenUsesOneStatementPerChunk() {
+            mvc.get()
+                    .uri("/documents/export")
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200);
+        }
 
-            mvc.post()
+        @Test
+        @SqlStatementBudget(1)
+        void givenUserWithReadPermission_whenGetDocumentById_thenUsesOneStatement() {
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.accessibleUsers.length()", len -> len.assertThat().isEqualTo(2));
+        }
+
+        @Test
+        @SqlStatementBudget(2) // one per request: the 304 costs the same single statement
+        void givenMatchingETag_whenGetDocumentById_thenUsesOneStatementPerRequest() {
+            String etag = mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .exchange()
+                    .getResponse()
+                    .getHeader("ETag");
+
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .header("If-None-Match", etag)
+                    .assertThat()
+                    .hasStatus(304);
+        }
+
+        @Test
+        @SqlStatementBudget(4)
+        void givenAdmin_whenUploadDocument_thenStaysWithinCreateBudget() {
+            mvc.post()
+                    .uri("/documents/upload?name=Doc&fileType=txt&access=user1:READ")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .content("body".getBytes(StandardCharsets.UTF_8))
+                    .assertThat()
+                    .hasStatus(201);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenUserWithNoPermission_whenGetDocumentById_thenUsesOneStatement() {
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user3")
+                    .assertThat()
+                    .hasStatus(403);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenNonExistingId_whenGetDocumentById_thenUsesOneStatement() {
+            mvc.get()
+                    .uri("/documents/{id}", UUID.randomUUID())
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(404);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenUserWithReadPermission_whenGetContent_thenUsesOneStatement() {
+            mvc.get()
+                    .uri("/documents/{id}/content", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenUserWithDeletePermission_whenDeleteDocument_thenUsesOneStatement() {
+            mvc.delete()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user2")
+                    .assertThat()
+                    .hasStatus(204);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenUserWithNoPermission_whenDeleteDocument_thenUsesOneStatement() {
+            mvc.delete()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(403);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenNonExistingId_whenDeleteDocument_thenUsesOneStatement() {
+            mvc.delete()
+                    .uri("/documents/{id}", UUID.randomUUID())
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(404);
+        }
+
+        @Test
+        @SqlStatementBudget(2) // plus the index interning user3 if no earlier test has
+        void givenAdmin_whenGrantPermission_thenChecksAndUpsertsInOneStatement() {
+            mvc.post()
+                    .uri("/documents/{id}/grant", documentId)
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "username": "user3", "permission": "READ" }
+                            """)
+                    .assertThat()
+                    .hasStatus(200);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenUserWithoutWrite_whenGrantPermission_thenDeniesInOneStatement() {
+            mvc.post()
+                    .uri("/documents/{id}/grant", documentId)
+                    .header("X-User", "user1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "username": "user3", "permission": "READ" }
+                            """)
+                    .assertThat()
+                    .hasStatus(403);
+        }
+
+        @Test
+        @SqlStatementBudget(3) // plus the index interning usernames no earlier test has granted to
+        void givenAdmin_whenBatchGrant_thenLooksUpAndUpsertsInOneStatementEach() {
+            mvc.post()
+                    .uri("/documents/grants:batch")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "grants": [
+                              { "documentId": "%s", "username": "user3", "permission": "READ" },
+                              { "documentId": "%s", "username": "user4", "permission": "WRITE" }
+                            ] }
+                            """.formatted(documentId, documentId))
+                    .assertThat()
+                    .hasStatus(200);
+        }
+
+        @Test
+        @SqlStatementBudget(3) // plus the index interning the chunk's new document ids
+        void givenAdmin_whenImportDocuments_thenWritesEachChunkInOneBatchAndOneUpsert() {
+            mvc.post()
+                    .uri("/documents/import")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content("""
+                            {"name":"Imported 1","content":"body 1","fileType":"txt","accessibleUsers":[{"username":"user1","permission":"READ"}]}
+                            {"name":"Imported 2","content":"body 2","fileType":"txt","accessibleUsers":[{"username":"user2","permission":"READ"}]}
+                            """)
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.imported", imported -> imported.assertThat().isEqualTo(2));
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenUser_whenBatchAccessCheck_thenUsesAtMostOneStatement() {
+            mvc.post()
+                    .uri("/documents/access-check")
+                    .header("X-User", "user1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "permission": "READ", "documentIds": ["%s", "%s"] }
+                            """.formatted(documentId, UUID.randomUUID()))
+                    .assertThat()
+                    .hasStatus(200);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenAdmin_whenRevokeDocumentPermissions_thenChecksAndDeletesInOneStatement() {
+            mvc.delete()
+                    .uri("/documents/{id}/grants", documentId)
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(200);
+        }
+
+        @Test
+        @SqlStatementBudget(1)
+        void givenAdmin_whenRevokeUserPermissions_thenDeletesInOneStatement() {
+            mvc.delete()
+                    .uri("/documents/grants?username=user1")
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(200);
+        }
+    }
+
+    @Nested
+    @DisplayName("DELETE /documents/{id}/grants, /documents/grants")
+    class RevokePermission {
+
+        @Test
+        void givenAdmin_whenRevokePermission_thenUserLosesAccess() {
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200);
+
+            mvc.delete()
+                    .uri("/documents/{id}/grants/{username}", documentId, "user1")
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.revoked", revoked -> revoked.assertThat().isEqualTo(1));
+
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(403);
+            assertThat(documentAccessRepository.findPermissionsByDocumentIdAndUsername(UUID.fromString(documentId), "user2"))
+                    .hasValue(Permission.DELETE.getMask());
+        }
+
+        @Test
+        void givenUserWithWrite_whenRevokeDocumentPermissions_thenDeletesEveryGrantOnDocument() {
+            mvc.post()
+                    .uri("/documents/{id}/grant", documentId)
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "username": "user3", "permission": "WRITE" }
+                            """)
+                    .assertThat()
+                    .hasStatus(200);
+
+            mvc.delete()
+                    .uri("/documents/{id}/grants", documentId)
+                    .header("X-User", "user3")
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.revoked", revoked -> revoked.assertThat().isEqualTo(3));
+
+            assertThat(documentAccessRepository.count()).isZero();
+            mvc.post()
+                    .uri("/documents/access-check")
+                    .header("X-User", "user1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "permission": "READ", "documentIds": ["%s"] }
+                            """.formatted(documentId))
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.accessibleIds.length()", size -> size.assertThat().isEqualTo(0));
+        }
+
+        @Test
+        void givenAdmin_whenRevokeUserPermissions_thenDeletesGrantsAcrossDocuments() throws Exception {
+            String otherId = objectMapper.readTree(mvc.post()
+                    .uri("/documents")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                        { "name": "Other", "content": "Content", "fileType": "txt",
+                          "accessibleUsers": [ { "username": "user1", "permission": "READ" } ] }
+                        """)
+                    .exchange()
+                    .getResponse()
+                    .getContentAsString()).get("id").asText();
+
+            mvc.delete()
+                    .uri("/documents/grants?username=user1")
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.revoked", revoked -> revoked.assertThat().isEqualTo(2));
+
+            for (String id : List.of(documentId, otherId)) {
+                mvc.get()
+                        .uri("/documents/{id}", id)
+                        .header("X-User", "user1")
+                        .assertThat()
+                        .hasStatus(403);
+            }
+            assertThat(documentAccessRepository.count()).isEqualTo(1);
+        }
+
+        @Test
+        void givenUserWithoutWrite_whenRevoke_thenReturnsForbiddenAndKeepsGrants() {
+            mvc.delete()
+                    .uri("/documents/{id}/grants/{username}", documentId, "user2")
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(403);
+            mvc.delete()
+                    .uri("/documents/grants?username=user2")
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(403);
+
+            assertThat(documentAccessRepository.count()).isEqualTo(2);
+        }
+
+        @Test
+        void givenUnknownDocument_whenRevoke_thenReturnsNotFound() {
+            mvc.delete()
+                    .uri("/documents/{id}/grants", UUID.randomUUID())
+                    .header("X-User", "admin")
+                    .assertThat()
+                    .hasStatus(404);
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /documents/{id}/grant")
+    class GrantPermission {
+
+        @Test
+        void givenAdminUser_whenGrantPermission_thenReturnsOk() {
+            String request = """
+                    { "username": "user3", "permission": "READ" }
+                    """;
+
+            mvc.post()
+                    .uri("/documents/{id}/grant", documentId)
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(request)
+                    .assertThat()
+                    .hasStatus(200);
+        }
+
+        @Test
+        void givenExistingGrant_whenGrantAnotherPermission_thenMergesIntoSameRow() {
+            String request = """
+                    { "username": "user1", "permission": "WRITE" }
+                    """;
+
+            mvc.post()
+                    .uri("/documents/{id}/grant", documentId)
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(request)
+                    .assertThat()
+                    .hasStatus(200);
+
+            assertThat(documentAccessRepository.count()).isEqualTo(2);
+
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.accessibleUsers.length()", len -> len.assertThat().isEqualTo(3));
+        }
+
+        @Test
+        void givenUserWithOnlyReadPermission_whenGrantPermission_thenReturnsForbidden() {
+            String request = """
+                    { "username": "user3", "permission": "READ" }
+                    """;
+
+            mvc.post()
+                    .uri("/documents/{id}/grant", documentId)
+                    .header("X-User", "user1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(request)
+                    .assertThat()
+                    .hasStatus(403)
+                    .bodyJson()
+                    .hasPathSatisfying("$.message", msg ->
+                            msg.assertThat().isEqualTo("You don't have permission to grant access"));
+        }
+
+        @Test
+        void givenNonExistingDocument_whenGrantPermission_thenReturnsNotFound() {
+            String request = """
+                    { "username": "user3", "permission": "READ" }
+                    """;
+
+            mvc.post()
                     .uri("/documents/{id}/grant", UUID.randomUUID())
                     .header("X-User", "admin")
                     .contentType(MediaType.APPLICATION_JSON)
@@ -305,6 +1149,135 @@ public class DocumentControllerIT extends AbstractIT {
         }
     }
 
+    @Nested
+    @DisplayName("POST /documents/{id}/grant under concurrency")
+    class ConcurrentGrant {
+
+        private static final int THREADS = 16;
+        private static final int GRANTS_PER_THREAD = 25;
+
+        @Test
+        void givenConcurrentIdenticalAndOverlappingGrants_whenGranting_thenNoneFailAndBitsMerge() throws Exception {
+            Permission[] permissions = Permission.values();
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Integer>>> statuses = new ArrayList<>();
+
+            try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+                for (int t = 0; t < THREADS; t++) {
+                    int thread = t;
+                    statuses.add(executor.submit(() -> {
+                        start.await();
+                        List<Integer> codes = new ArrayList<>();
+                        for (int i = 0; i < GRANTS_PER_THREAD; i++) {
+                            // every thread hits the same few (document, user) rows with different bits
+                            Permission permission = permissions[(thread + i) % permissions.length];
+                            codes.add(mvc.post()
+                                    .uri("/documents/{id}/grant", documentId)
+                                    .header("X-User", "admin")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("""
+                                            { "username": "racer-%d", "permission": "%s" }
+                                            """.formatted(i % 3, permission))
+                                    .exchange()
+                                    .getResponse()
+                                    .getStatus());
+                        }
+                        return codes;
+                    }));
+                }
+                start.countDown();
+
+                for (Future<List<Integer>> codes : statuses) {
+                    assertThat(codes.get(60, TimeUnit.SECONDS)).containsOnly(200);
+                }
+            }
+
+            assertThat(documentAccessRepository.count()).isEqualTo(2 + 3);
+            for (int user = 0; user < 3; user++) {
+                assertThat(documentAccessRepository.findPermissionsByDocumentIdAndUsername(
+                        UUID.fromString(documentId), "racer-" + user))
+                        .hasValue(Permission.toMask(List.of(permissions)));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /documents/grants:batch")
+    class BatchGrant {
+
+        @Test
+        void givenAdmin_whenBatchGrant_thenGrantsEveryUserAndReportsPerItem() throws Exception {
+            UUID missingId = UUID.randomUUID();
+            List<Map<String, Object>> grants = new ArrayList<>();
+            IntStream.range(0, 1_000).forEach(i -> grants.add(Map.of(
+                    "documentId", documentId, "username", "bulk-" + i, "permission", "READ")));
+            grants.add(Map.of("documentId", documentId, "username", "user1", "permission", "WRITE"));
+            grants.add(Map.of("documentId", missingId, "username", "bulk-0", "permission", "READ"));
+
+            var response = mvc.post()
+                    .uri("/documents/grants:batch")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Map.of("grants", grants)))
+                    .exchange();
+
+            assertThat(response).hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.granted", granted -> granted.assertThat().isEqualTo(1_001))
+                    .hasPathSatisfying("$.results[1001].status", status -> status.assertThat().isEqualTo("NOT_FOUND"));
+            assertThat(documentAccessRepository.count()).isEqualTo(2 + 1_000);
+
+            // the grant event reaches the caches and index like a single grant does
+            mvc.post()
+                    .uri("/documents/access-check")
+                    .header("X-User", "bulk-999")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "permission": "READ", "documentIds": ["%s"] }
+                            """.formatted(documentId))
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.accessibleIds.length()", len -> len.assertThat().isEqualTo(1));
+            mvc.get()
+                    .uri("/documents/{id}", documentId)
+                    .header("X-User", "user1")
+                    .assertThat()
+                    .hasStatus(200);
+        }
+
+        @Test
+        void givenUserWithoutWrite_whenBatchGrant_thenItemIsForbidden() {
+            mvc.post()
+                    .uri("/documents/grants:batch")
+                    .header("X-User", "user2")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "grants": [ { "documentId": "%s", "username": "user3", "permission": "READ" } ] }
+                            """.formatted(documentId))
+                    .assertThat()
+                    .hasStatus(200)
+                    .bodyJson()
+                    .hasPathSatisfying("$.granted", granted -> granted.assertThat().isEqualTo(0))
+                    .hasPathSatisfying("$.results[0].status", status -> status.assertThat().isEqualTo("FORBIDDEN"));
+
+            assertThat(documentAccessRepository.count()).isEqualTo(2);
+        }
+
+        @Test
+        void givenEmptyGrants_whenBatchGrant_thenReturnsBadRequest() {
+            mvc.post()
+                    .uri("/documents/grants:batch")
+                    .header("X-User", "admin")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""
+                            { "grants": [] }
+                            """)
+                    .assertThat()
+                    .hasStatus(400);
+        }
+    }
+
     @Nested
     @DisplayName("POST /documents/access-check")
     class BatchAccessCheck {
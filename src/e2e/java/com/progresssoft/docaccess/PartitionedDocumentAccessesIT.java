@@ -0,0 +1,188 @@
+package com.progresssoft.docaccess;
+
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.assertj.MockMvcTester;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs on its own database migrated with {@code document-accesses-partitions} set, so the shared
+ * {@link AbstractIT} schema stays a plain table.
+ */
+@SpringBootTest(properties = "spring.liquibase.parameters.document-accesses-partitions=" + PartitionedDocumentAccessesIT.PARTITIONS)
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+@DisplayName("Hash-partitioned document_accesses IT")
+public class PartitionedDocumentAccessesIT {
+
+    static final int PARTITIONS = 8;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("docaccess_partitioned_test")
+            .withUsername("test")
+            .withPassword("test");
+
+    @Autowired private MockMvcTester mvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private DocumentRepository documentRepository;
+    @Autowired private DocumentAccessRepository documentAccessRepository;
+
+    private String documentId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var response = mvc.post()
+                .uri("/documents")
+                .header("X-User", "admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "name": "Test Document",
+                      "content": "Test Content",
+                      "fileType": "pdf",
+                      "accessibleUsers": [
+                        { "username": "user1", "permission": "READ" },
+                        { "username": "user2", "permission": "DELETE" }
+                      ]
+                    }
+                    """)
+                .exchange();
+
+        documentId = objectMapper.readTree(response.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentAccessRepository.deleteAll();
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void givenPartitionCount_whenMigrated_thenTableIsHashPartitionedOnDocumentId() {
+        String strategy = jdbcTemplate.queryForObject(
+                "SELECT partstrat::text FROM pg_partitioned_table WHERE partrelid = 'document_accesses'::regclass",
+                String.class
+        );
+        Integer partitions = jdbcTemplate.queryForObject(
+                "SELECT count(*)::int FROM pg_inherits WHERE inhparent = 'document_accesses'::regclass",
+                Integer.class
+        );
+
+        assertThat(strategy).isEqualTo("h");
+        assertThat(partitions).isEqualTo(PARTITIONS);
+    }
+
+    @Test
+    void givenPartitionedTable_whenGrantReadRevokeAndDelete_thenBehavesAsBefore() {
+        mvc.post()
+                .uri("/documents/{id}/grant", documentId)
+                .header("X-User", "admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        { "username": "user1", "permission": "WRITE" }
+                        """)
+                .assertThat()
+                .hasStatus(200);
+        assertThat(documentAccessRepository.findPermissionsByDocumentIdAndUsername(UUID.fromString(documentId), "user1"))
+                .hasValue(Permission.READ.getMask() | Permission.WRITE.getMask());
+
+        mvc.get()
+                .uri("/documents/{id}", documentId)
+                .header("X-User", "user1")
+                .assertThat()
+                .hasStatus(200);
+
+        mvc.delete()
+                .uri("/documents/{id}/grants/{username}", documentId, "user1")
+                .header("X-User", "admin")
+                .assertThat()
+                .hasStatus(200)
+                .bodyJson()
+                .hasPathSatisfying("$.revoked", revoked -> revoked.assertThat().isEqualTo(1));
+
+        mvc.get()
+                .uri("/documents/{id}", documentId)
+                .header("X-User", "user1")
+                .assertThat()
+                .hasStatus(403);
+
+        mvc.delete()
+                .uri("/documents/{id}", documentId)
+                .header("X-User", "user2")
+                .assertThat()
+                .hasStatus(204);
+
+        assertThat(documentAccessRepository.count()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM acl_user_ids WHERE username = 'user1'", Long.class))
+                .isOne();
+    }
+
+    @Test
+    void givenDocumentId_whenPlanningPerDocumentQueries_thenOnlyOnePartitionIsRead() {
+        UUID id = UUID.fromString(documentId);
+
+        assertThat(partitionsRead("""
+                SELECT a.permissions FROM document_accesses a
+                WHERE a.document_id = ? AND a.username = ?
+                """, id, "user1")).hasSize(1);
+        assertThat(partitionsRead("""
+                SELECT COALESCE(a.permissions, 0)
+                FROM documents d
+                LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = ?
+                WHERE d.id = ?
+                """, "user1", id)).hasSize(1);
+        assertThat(partitionsRead("DELETE FROM document_accesses WHERE document_id = ?", id)).hasSize(1);
+    }
+
+    @Test
+    void givenUsername_whenPlanningPerUserQuery_thenEveryPartitionIsProbed() {
+        assertThat(partitionsRead("""
+                SELECT a.document_id FROM document_accesses a
+                WHERE a.username = ? AND (a.permissions & ?) <> 0
+                """, "user1", 1)).hasSize(PARTITIONS);
+    }
+
+    // plain EXPLAIN: planned with the bound values (so pruning happens) but never executed
+    private Set<String> partitionsRead(String sql, Object... arguments) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, arguments);
+        Set<String> partitions = new HashSet<>();
+        collectPartitions(objectMapper.readTree(plan).get(0).get("Plan"), partitions);
+        return partitions;
+    }
+
+    private static void collectPartitions(JsonNode node, Set<String> partitions) {
+        String relation = node.path("Relation Name").asText();
+        if (relation.startsWith("document_accesses_p") && !"ModifyTable".equals(node.get("Node Type").asText())) {
+            partitions.add(relation);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectPartitions(child, partitions);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.progresssoft.docaccess;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository query under {@code EXPLAIN (ANALYZE, BUFFERS)} against seeded tables and fails
+ * when {@code documents}, {@code document_accesses} or {@code accessible_documents} is read
+ * sequentially. The SQL mirrors the repository queries (JPQL and derived ones as Hibernate renders
+ * them); keep both in step. {@code streamAll} is left out, reading every document is what it is for.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Query plan regression tests")
+public class QueryPlanIT extends AbstractIT {
+
+    private static final int DOCUMENTS = 20_000;
+    private static final int USERS = 2_000;
+    private static final int GRANTS_PER_DOCUMENT = 10;
+    private static final String SEED_OWNER = "query-plan-seed";
+    private static final UUID FIRST = new UUID(0, 0);
+
+    private static final Set<String> TABLES = Set.of("documents", "document_accesses", "accessible_documents");
+    private static final Set<String> INDEXED_SCANS = Set.of("Index Scan", "Index Only Scan", "Bitmap Heap Scan");
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final String username = "user-42";
+    private UUID documentId;
+    private List<UUID> documentIds;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO documents (id, name, file_type, created_by, content_hash, content_size, content_stored_size)
+                SELECT uuid_generate_v7(), 'doc-' || g, 'txt', ?, md5('doc-' || g), 7, 7
+                FROM generate_series(1, ?) g
+                """, SEED_OWNER, DOCUMENTS);
+        // every document goes to GRANTS_PER_DOCUMENT distinct users (211 is coprime with USERS), any mask 1..7
+        jdbcTemplate.update("""
+                INSERT INTO document_accesses (id, document_id, username, permissions)
+                SELECT uuid_generate_v7(), d.id, 'user-' || ((d.rn * 7 + u * 211) % ?), 1 + ((d.rn + u) % 7)
+                FROM (SELECT id, row_number() OVER (ORDER BY id) AS rn FROM documents WHERE created_by = ?) d
+                CROSS JOIN generate_series(1, ?) u
+                """, USERS, SEED_OWNER, GRANTS_PER_DOCUMENT);
+        // index-only scans need the visibility map, the planner needs statistics
+        jdbcTemplate.execute("VACUUM ANALYZE documents");
+        jdbcTemplate.execute("VACUUM ANALYZE document_accesses");
+        jdbcTemplate.execute("VACUUM ANALYZE accessible_documents");
+
+        documentIds = jdbcTemplate.queryForList(
+                "SELECT document_id FROM document_accesses WHERE username = ? ORDER BY document_id LIMIT 20",
+                UUID.class,
+                username
+        );
+        documentId = documentIds.getFirst();
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM documents WHERE created_by = ?", SEED_OWNER);
+    }
+
+    @Nested
+    @DisplayName("DocumentRepository")
+    class DocumentQueries {
+
+        @Test
+        @DisplayName("findPageAfter should seek on the primary key")
+        void findPageAfter() {
+            List<JsonNode> scans = scans("""
+                    SELECT d.id, d.name, d.file_type, d.created_by, d.content_size, d.content_hash
+                    FROM documents d
+                    WHERE d.id > ?
+                    ORDER BY d.id
+                    LIMIT ?
+                    """, FIRST, 20);
+
+            assertIndexed(scans);
+        }
+
+        @Test
+        @DisplayName("findAccessiblePageAfter should be one range of the read model's primary key")
+        void findAccessiblePageAfter() {
+            List<JsonNode> scans = scans("""
+                    SELECT l.document_id, l.name, l.file_type, l.created_by, l.content_size, l.content_hash
+                    FROM accessible_documents l
+                    WHERE l.username = ?
+                    AND l.permission = ?
+                    AND l.document_id > ?
+                    ORDER BY l.document_id
+                    LIMIT ?
+                    """, username, 1, FIRST, 20);
+
+            assertThat(scans).singleElement().satisfies(scan -> {
+                assertThat(scan.get("Node Type").asText()).isEqualTo("Index Scan");
+                assertThat(scan.get("Index Name").asText()).isEqualTo("pk_accessible_documents");
+            });
+        }
+
+        @Test
+        @DisplayName("streamAccessible should not scan the tables")
+        void streamAccessible() {
+            List<JsonNode> scans = scans("""
+                    SELECT d.* FROM document_accesses a
+                    JOIN documents d ON d.id = a.document_id
+                    WHERE a.username = ?
+                    AND (a.permissions & ?) <> 0
+                    """, username, 1);
+
+            assertIndexed(scans);
+            assertIndexOnly(scans, "idx_document_accesses_username_document_permissions");
+        }
+
+        @Test
+        @DisplayName("findAllByIdInAndAccessListUsernameAndAccessListPermission should read the covering constraint only")
+        void findAccessibleIds() {
+            List<JsonNode> scans = scans("""
+                    SELECT a.document_id FROM document_accesses a
+                    WHERE a.document_id IN (%s)
+                    AND a.username = ?
+                    AND (a.permissions & ?) <> 0
+                    """.formatted(placeholders(documentIds.size())), arguments(documentIds, username, 1));
+
+            assertIndexed(scans);
+            assertIndexOnly(scans, "uq_document_accesses_document_username");
+        }
+
+        @Test
+        @DisplayName("findWithAccessListById should not scan the tables")
+        void findWithAccessListById() {
+            List<JsonNode> scans = scans("""
+                    SELECT d.*, a.* FROM documents d
+                    LEFT JOIN document_accesses a ON a.document_id = d.id
+                    WHERE d.id = ?
+                    """, documentId);
+
+            assertIndexed(scans);
+        }
+
+        @Test
+        @DisplayName("findContentById should not scan the tables")
+        void findContentById() {
+            List<JsonNode> scans = scans("""
+                    SELECT d.content_hash, d.content_size, d.content, d.content_encoding, d.content_stored_size,
+                           COALESCE(a.permissions, 0)
+                    FROM documents d
+                    LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = ?
+                    WHERE d.id = ?
+                    """, username, documentId);
+
+            assertIndexed(scans);
+            assertIndexOnly(scans, "uq_document_accesses_document_username");
+        }
+
+        @Test
+        @DisplayName("findPermissionsByIdIn should not scan the tables")
+        void findPermissionsByIdIn() {
+            List<JsonNode> scans = scans("""
+                    SELECT d.id, COALESCE(a.permissions, 0)
+                    FROM documents d
+                    LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = ?
+                    WHERE d.id IN (%s)
+                    """.formatted(placeholders(documentIds.size())), arguments(username, documentIds));
+
+            assertIndexed(scans);
+        }
+
+        @Test
+        @DisplayName("deleteIfPermitted should not scan the tables")
+        void deleteIfPermitted() {
+            List<JsonNode> scans = scans("""
+                    WITH target AS (
+                        SELECT d.id, COALESCE(a.permissions, 0) AS permissions
+                        FROM documents d
+                        LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = ?
+                        WHERE d.id = ?
+                    ),
+                    deleted AS (
+                        DELETE FROM documents d
+                        USING target t
+                        WHERE d.id = t.id
+                        AND (? OR (t.permissions & ?) <> 0)
+                        RETURNING d.id
+                    )
+                    SELECT EXISTS (SELECT 1 FROM target), EXISTS (SELECT 1 FROM deleted)
+                    """, username, documentId, false, 4);
+
+            assertIndexed(scans);
+        }
+    }
+
+    @Nested
+    @DisplayName("DocumentAccessRepository")
+    class DocumentAccessQueries {
+
+        @Test
+        @DisplayName("findPermissionsByDocumentIdAndUsername should read the covering constraint only")
+        void findPermissionsByDocumentIdAndUsername() {
+            List<JsonNode> scans = scans("""
+                    SELECT a.permissions FROM document_accesses a
+                    WHERE a.document_id = ?
+                    AND a.username = ?
+                    """, documentId, username);
+
+            assertIndexed(scans);
+            assertIndexOnly(scans, "uq_document_accesses_document_username");
+        }
+
+        @Test
+        @DisplayName("findAllByDocumentIdIn should not scan the table")
+        void findAllByDocumentIdIn() {
+            List<JsonNode> scans = scans("""
+                    SELECT a.* FROM document_accesses a
+                    WHERE a.document_id IN (%s)
+                    """.formatted(placeholders(documentIds.size())), documentIds.toArray());
+
+            assertIndexed(scans);
+        }
+
+        @Test
+        @DisplayName("grantIfPermitted should not scan the tables")
+        void grantIfPermitted() {
+            List<JsonNode> scans = scans("""
+                    WITH target AS (
+                        SELECT d.id, COALESCE(a.permissions, 0) AS permissions
+                        FROM documents d
+                        LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = ?
+                        WHERE d.id = ?
+                    ),
+                    granted AS (
+                        INSERT INTO document_accesses (id, document_id, username, permissions)
+                        SELECT ?, t.id, ?, ?
+                        FROM target t
+                        WHERE ? OR (t.permissions & ?) <> 0
+                        ON CONFLICT (document_id, username)
+                        DO UPDATE SET permissions = document_accesses.permissions | EXCLUDED.permissions
+                        RETURNING 1
+                    )
+                    SELECT EXISTS (SELECT 1 FROM target), EXISTS (SELECT 1 FROM granted)
+                    """, username, documentId, UUID.randomUUID(), "someone-new", 1, true, 2);
+
+            assertIndexed(scans);
+        }
+
+        @Test
+        @DisplayName("revokeIfPermitted should not scan the tables, for one user or the whole document")
+        void revokeIfPermitted() {
+            String sql = """
+                    WITH target AS (
+                        SELECT d.id, COALESCE(a.permissions, 0) AS permissions
+                        FROM documents d
+                        LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = ?
+                        WHERE d.id = ?
+                    ),
+                    permitted AS (
+                        SELECT t.id FROM target t
+                        WHERE ? OR (t.permissions & ?) <> 0
+                    ),
+                    revoked AS (
+                        DELETE FROM document_accesses r
+                        USING permitted p
+                        WHERE r.document_id = p.id
+                        AND (CAST(? AS VARCHAR) IS NULL OR r.username = ?)
+                        RETURNING 1
+                    )
+                    SELECT EXISTS (SELECT 1 FROM target), EXISTS (SELECT 1 FROM permitted),
+                           (SELECT count(*) FROM revoked)
+                    """;
+
+            assertIndexed(scans(sql, username, documentId, true, 2, "user-7", "user-7"));
+            assertIndexed(scans(sql, username, documentId, true, 2, null, null));
+        }
+
+        @Test
+        @DisplayName("deleteAllByUsername should seek on the username index")
+        void deleteAllByUsername() {
+            List<JsonNode> scans = scans("DELETE FROM document_accesses WHERE username = ?", username);
+
+            assertIndexed(scans);
+        }
+    }
+
+    // EXPLAIN ANALYZE executes the statement, so writes are rolled back
+    private List<JsonNode> scans(String sql, Object... arguments) {
+        String plan = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return jdbcTemplate.queryForObject("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql, String.class, arguments);
+        });
+        List<JsonNode> scans = new ArrayList<>();
+        collectScans(objectMapper.readTree(plan).get(0).get("Plan"), scans);
+        assertThat(scans).as("table reads in the plan of%n%s", sql).isNotEmpty();
+        return scans;
+    }
+
+    private static void collectScans(JsonNode node, List<JsonNode> scans) {
+        if (node.has("Relation Name")
+                && TABLES.contains(node.get("Relation Name").asText())
+                && !"ModifyTable".equals(node.get("Node Type").asText())) {
+            scans.add(node);
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectScans(child, scans);
+        }
+    }
+
+    private static void assertIndexed(List<JsonNode> scans) {
+        assertThat(scans)
+                .allSatisfy(scan -> assertThat(scan.get("Node Type").asText())
+                        .as("%s on %s", scan.get("Node Type").asText(), scan.get("Relation Name").asText())
+                        .isIn(INDEXED_SCANS));
+    }
+
+    private static void assertIndexOnly(List<JsonNode> scans, String index) {
+        assertThat(scans)
+                .filteredOn(scan -> index.equals(scan.path("Index Name").asText()))
+                .singleElement()
+                .satisfies(scan -> {
+                    assertThat(scan.get("Node Type").asText()).isEqualTo("Index Only Scan");
+                    assertThat(scan.get("Heap Fetches").asLong()).isZero();
+                });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] arguments(Object... parts) {
+        List<Object> arguments = new ArrayList<>();
+        for (Object part : parts) {
+            if (part instanceof List<?> list) {
+                arguments.addAll(list);
+            } else {
+                arguments.add(part);
+            }
+        }
+        return arguments.toArray();
+    }
+}
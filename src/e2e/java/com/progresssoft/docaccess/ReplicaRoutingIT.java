@@ -0,0 +1,196 @@
+package com.progresssoft.docaccess;
+
+import com.progresssoft.docaccess.replica.ReplicaLagMonitor;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.security.UserContextHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.assertj.MockMvcTester;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tools.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Primary and a streaming replica cloned from it with {@code pg_basebackup}. The lag monitor is
+ * driven by the tests instead of its schedule.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+@DisplayName("Read replica routing IT")
+public class ReplicaRoutingIT {
+
+    private static final long STICKINESS_MILLIS = 1_500;
+    private static final long MAX_LAG_MILLIS = 500;
+
+    static Network network = Network.newNetwork();
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("docaccess_test")
+            .withUsername("test")
+            .withPassword("test")
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCopyToContainer(
+                    Transferable.of("echo 'host replication all all scram-sha-256' >> \"$PGDATA/pg_hba.conf\"\n", 0755),
+                    "/docker-entrypoint-initdb.d/allow-replication.sh"
+            );
+
+    @Container
+    static GenericContainer<?> replica = new GenericContainer<>("postgres:16-alpine")
+            .dependsOn(primary)
+            .withNetwork(network)
+            .withEnv("PGPASSWORD", "test")
+            .withExposedPorts(5432)
+            .withCommand("sh", "-c", """
+                    until rm -rf "$PGDATA"/* && su-exec postgres pg_basebackup -h primary -U test -D "$PGDATA" -R -X stream
+                    do sleep 1; done
+                    exec su-exec postgres postgres
+                    """)
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*\\n", 1));
+
+    @DynamicPropertySource
+    static void replicas(DynamicPropertyRegistry registry) {
+        registry.add("docaccess.replicas.enabled", () -> "true");
+        registry.add("docaccess.replicas.urls", ReplicaRoutingIT::replicaUrl);
+        registry.add("docaccess.replicas.max-lag", () -> MAX_LAG_MILLIS + "ms");
+        registry.add("docaccess.replicas.stickiness", () -> STICKINESS_MILLIS + "ms");
+        registry.add("docaccess.replicas.lag-check-interval", () -> "PT1H");
+    }
+
+    private static String replicaUrl() {
+        return "jdbc:postgresql://%s:%d/docaccess_test".formatted(replica.getHost(), replica.getMappedPort(5432));
+    }
+
+    @Autowired private MockMvcTester mvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private ReplicaLagMonitor lagMonitor;
+    @Autowired private DocumentRepository documentRepository;
+
+    private JdbcTemplate replicaJdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        replicaJdbc = new JdbcTemplate(new DriverManagerDataSource(replicaUrl(), "test", "test"));
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        awaitReplicaAvailable();
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserContextHolder.clear();
+        replicaJdbc.execute("SELECT pg_wal_replay_resume()");
+        documentRepository.deleteAll();
+    }
+
+    private boolean servedByReplica(String username, TransactionTemplate transaction) {
+        UserContextHolder.setCurrentUser(username);
+        try {
+            return Boolean.TRUE.equals(transaction.execute(status ->
+                    jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)));
+        } finally {
+            UserContextHolder.clear();
+        }
+    }
+
+    private void awaitReplicaAvailable() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (System.currentTimeMillis() < deadline) {
+            lagMonitor.refresh();
+            if (servedByReplica("probe", readOnly)) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("replica did not catch up");
+    }
+
+    private String createDocument(String grantee) throws Exception {
+        var response = mvc.post()
+                .uri("/documents")
+                .header("X-User", "admin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    { "name": "Replicated", "content": "Content", "fileType": "txt",
+                      "accessibleUsers": [ { "username": "%s", "permission": "READ" } ] }
+                    """.formatted(grantee))
+                .exchange();
+        return objectMapper.readTree(response.getResponse().getContentAsString()).get("id").asText();
+    }
+
+    @Test
+    void givenCaughtUpReplica_whenReadOnlyTransaction_thenReplicaServesIt() {
+        assertThat(servedByReplica("reader", readOnly)).isTrue();
+        assertThat(servedByReplica("reader", readWrite)).isFalse();
+    }
+
+    @Test
+    void givenNoRequestUser_whenReadOnlyTransaction_thenPrimaryServesIt() {
+        assertThat(Boolean.TRUE.equals(readOnly.execute(status ->
+                jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)))).isFalse();
+    }
+
+    @Test
+    void givenGrant_whenWriterAndGranteeReadRightAfter_thenPrimaryServesThemUntilStickinessExpires() throws Exception {
+        String documentId = createDocument("user1");
+
+        assertThat(servedByReplica("admin", readOnly)).isFalse();
+        assertThat(servedByReplica("user1", readOnly)).isFalse();
+        assertThat(servedByReplica("someone-else", readOnly)).isTrue();
+        mvc.get()
+                .uri("/documents/{id}", documentId)
+                .header("X-User", "user1")
+                .assertThat()
+                .hasStatus(200);
+
+        Thread.sleep(STICKINESS_MILLIS + 200);
+        awaitReplicaAvailable();
+
+        assertThat(servedByReplica("user1", readOnly)).isTrue();
+    }
+
+    @Test
+    void givenReplayPaused_whenLagExceedsMaximum_thenReadsFallBackToPrimary() throws Exception {
+        replicaJdbc.execute("SELECT pg_wal_replay_pause()");
+        createDocument("user1");
+        Thread.sleep(MAX_LAG_MILLIS + 200);
+
+        lagMonitor.refresh();
+
+        assertThat(servedByReplica("reader", readOnly)).isFalse();
+
+        replicaJdbc.execute("SELECT pg_wal_replay_resume()");
+        awaitReplicaAvailable();
+        assertThat(servedByReplica("reader", readOnly)).isTrue();
+    }
+}
@@ -0,0 +1,23 @@
+package com.progresssoft.docaccess.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test when it executes more SQL statements than {@link #value()}, counted at the data
+ * source by {@link SqlStatementCounter} so JDBC batches, {@code COPY} and after-commit listeners count
+ * too. Transaction control is not: {@code BEGIN} travels with the first statement and every measured
+ * request ends in one {@code COMMIT} or {@code ROLLBACK}. Only the test method body is measured,
+ * {@code @BeforeEach} set-up is not.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    int value();
+}
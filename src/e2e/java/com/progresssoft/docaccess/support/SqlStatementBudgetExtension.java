@@ -0,0 +1,44 @@
+package com.progresssoft.docaccess.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        counter(context).clear();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        int budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), SqlStatementBudget.class)
+                .map(SqlStatementBudget::value)
+                .orElseThrow();
+        List<String> statements = counter(context).statements();
+
+        if (statements.size() > budget) {
+            throw new AssertionError("%s executed %d SQL statements, budget is %d. Statements: %s".formatted(
+                    context.getDisplayName(),
+                    statements.size(),
+                    budget,
+                    String.join(" | ", statements)
+            ));
+        }
+    }
+
+    private static SqlStatementCounter counter(ExtensionContext context) {
+        SqlStatementCounter counter = SpringExtension.getApplicationContext(context)
+                .getBeanProvider(SqlStatementCounter.class)
+                .getIfAvailable();
+        if (counter == null) {
+            throw new IllegalStateException("@SqlStatementBudget needs SqlStatementCounter imported into the test context");
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,125 @@
+package com.progresssoft.docaccess.support;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Wraps the application's {@code dataSource} bean and records every statement executed through it,
+ * whichever way it was issued: Hibernate, {@code JdbcTemplate}, JDBC batches, {@code COPY} and the
+ * event listeners that query after a commit. A batch is one entry, the driver sends it in one go.
+ * Imported by {@code AbstractIT}, read by {@link SqlStatementBudgetExtension}.
+ */
+public class SqlStatementCounter implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch"
+    );
+
+    private final Queue<String> statements = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    public List<String> statements() {
+        return List.copyOf(statements);
+    }
+
+    private Connection counting(Connection target) {
+        return proxy(Connection.class, target, (method, args) -> {
+            // CopyManager is a class and cannot be proxied; callers fetch it once per COPY
+            if (method.getName().equals("unwrap") && args[0] == PGConnection.class) {
+                return counting(target.unwrap(PGConnection.class));
+            }
+
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return counting(method.getReturnType(), statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private PGConnection counting(PGConnection target) {
+        return proxy(PGConnection.class, target, (method, args) -> {
+            if (method.getName().equals("getCopyAPI")) {
+                statements.add("COPY");
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    private Object counting(Class<?> type, Statement target, String preparedSql) {
+        return proxy(type, target, (method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                statements.add(sql != null ? sql.strip() : "<batch>");
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, Forwarder forwarder) {
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "toString" -> "Counting " + target;
+            default -> forwarder.forward(method, args);
+        };
+        return (T) Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Forwarder {
+        Object forward(Method method, Object[] args) throws Throwable;
+    }
+
+    private final class CountingDataSource extends DelegatingDataSource {
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+    }
+}
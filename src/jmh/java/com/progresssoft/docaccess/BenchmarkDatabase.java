@@ -0,0 +1,67 @@
+package com.progresssoft.docaccess;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> postgres;
+    private final DriverManagerDataSource dataSource;
+
+    private BenchmarkDatabase(PostgreSQLContainer<?> postgres) {
+        this.postgres = postgres;
+        this.dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(),
+                postgres.getUsername(),
+                postgres.getPassword()
+        );
+    }
+
+    public static BenchmarkDatabase start() {
+        return start(Map.of());
+    }
+
+    public static BenchmarkDatabase start(Map<String, String> changeLogParameters) {
+        PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+                .withDatabaseName("docaccess_bench")
+                .withUsername("bench")
+                .withPassword("bench");
+        postgres.start();
+
+        BenchmarkDatabase database = new BenchmarkDatabase(postgres);
+        database.migrate(changeLogParameters);
+        return database;
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    private void migrate(Map<String, String> changeLogParameters) {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.setChangeLog("classpath:db/changelog/master.xml");
+        liquibase.setChangeLogParameters(changeLogParameters);
+        try {
+            liquibase.afterPropertiesSet();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Could not migrate benchmark database", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        postgres.stop();
+    }
+}
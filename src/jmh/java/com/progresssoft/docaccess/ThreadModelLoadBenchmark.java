@@ -0,0 +1,165 @@
+package com.progresssoft.docaccess;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Requests per second of {@code GET /documents/{id}} with Tomcat on a bounded platform thread pool
+ * versus one virtual thread per request. The application talks to PostgreSQL through a Toxiproxy
+ * that adds {@link #DB_LATENCY_MILLIS} to every response, so request threads spend most of their
+ * time blocked on JDBC, and the permission cache is off so every request goes to the database.
+ * Many more clients than Tomcat threads are driving the load, so the platform run queues on the
+ * thread pool while the virtual run is bounded by the connection pool instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Threads(CLIENTS)
+@Fork(1)
+public class ThreadModelLoadBenchmark {
+
+    static final int CLIENTS = 400;
+
+    private static final int DB_LATENCY_MILLIS = 5;
+    private static final int TOMCAT_THREADS = 50;
+    private static final int CONNECTION_POOL_SIZE = 100;
+    private static final int DOCUMENTS = 200;
+    private static final String READER = "reader";
+
+    private static final Pattern DOCUMENT_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private Network network;
+    private PostgreSQLContainer<?> postgres;
+    private GenericContainer<?> toxiproxy;
+    private ConfigurableApplicationContext application;
+    private HttpClient client;
+    private List<URI> documents;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        network = Network.newNetwork();
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+                .withDatabaseName("docaccess_bench")
+                .withUsername("bench")
+                .withPassword("bench")
+                .withNetwork(network)
+                .withNetworkAliases("postgres");
+        postgres.start();
+        toxiproxy = new GenericContainer<>("ghcr.io/shopify/toxiproxy:2.5.0")
+                .withNetwork(network)
+                .withExposedPorts(8474, 8666)
+                .waitingFor(Wait.forHttp("/version").forPort(8474));
+        toxiproxy.start();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String toxiproxyApi = "http://%s:%d".formatted(toxiproxy.getHost(), toxiproxy.getMappedPort(8474));
+        post(URI.create(toxiproxyApi + "/proxies"), Map.of(), """
+                { "name": "postgres", "listen": "0.0.0.0:8666", "upstream": "postgres:5432" }
+                """);
+        post(URI.create(toxiproxyApi + "/proxies/postgres/toxics"), Map.of(), """
+                { "type": "latency", "stream": "downstream", "attributes": { "latency": %d } }
+                """.formatted(DB_LATENCY_MILLIS));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:postgresql://%s:%d/docaccess_bench"
+                .formatted(toxiproxy.getHost(), toxiproxy.getMappedPort(8666)));
+        properties.put("spring.datasource.username", postgres.getUsername());
+        properties.put("spring.datasource.password", postgres.getPassword());
+        properties.put("spring.datasource.hikari.maximum-pool-size", CONNECTION_POOL_SIZE);
+        properties.put("spring.liquibase.enabled", true);
+        properties.put("spring.liquibase.change-log", "classpath:db/changelog/master.xml");
+        properties.put("spring.jpa.properties.hibernate.show_sql", false);
+        properties.put("spring.threads.virtual.enabled", "virtual".equals(threads));
+        properties.put("server.port", 0);
+        properties.put("server.tomcat.threads.max", TOMCAT_THREADS);
+        properties.put("server.tomcat.max-connections", CLIENTS * 2);
+        properties.put("docaccess.permission-cache.enabled", false);
+        properties.put("docaccess.content-store.root", Files.createTempDirectory("docaccess-bench").toString());
+        properties.put("docaccess.content-store.migrate-legacy", false);
+        properties.put("logging.level.root", "WARN");
+        application = new SpringApplicationBuilder(DocAccessApplication.class).properties(properties).run();
+
+        String baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        documents = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            String created = post(URI.create(baseUrl + "/documents"), Map.of("X-User", "admin"), """
+                    { "name": "doc-%d", "content": "Content %d", "fileType": "txt",
+                      "accessibleUsers": [ { "username": "%s", "permission": "READ" } ] }
+                    """.formatted(i, i, READER));
+            Matcher id = DOCUMENT_ID.matcher(created);
+            if (!id.find()) {
+                throw new IllegalStateException("No document id in " + created);
+            }
+            documents.add(URI.create(baseUrl + "/documents/" + id.group(1)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+        toxiproxy.stop();
+        postgres.stop();
+        network.close();
+    }
+
+    @Benchmark
+    public int getDocument() throws IOException, InterruptedException {
+        URI document = documents.get(ThreadLocalRandom.current().nextInt(documents.size()));
+        HttpRequest request = HttpRequest.newBuilder(document).header("X-User", READER).GET().build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("GET " + document + " returned " + status);
+        }
+        return status;
+    }
+
+    private String post(URI uri, Map<String, String> headers, String json) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        headers.forEach(request::header);
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("POST " + uri + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
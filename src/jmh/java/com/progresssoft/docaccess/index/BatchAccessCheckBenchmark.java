@@ -0,0 +1,120 @@
+package com.progresssoft.docaccess.index;
+
+import com.progresssoft.docaccess.BenchmarkDatabase;
+import com.progresssoft.docaccess.dictionary.AclDictionary;
+import com.progresssoft.docaccess.enums.Permission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@code POST /documents/access-check} answered by the repository's {@code IN (...)} query
+ * with the same check answered by {@link DocumentAccessIndex}. Seeds 100k documents and ~500k grants.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchAccessCheckBenchmark {
+
+    private static final int DOCUMENTS = 100_000;
+    private static final int USERS = 1_000;
+    private static final String USERNAME = "user-1";
+
+    @Param({"100", "1000", "5000"})
+    public int requestSize;
+
+    private BenchmarkDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private DocumentAccessIndex index;
+    private List<UUID> requestedIds;
+    private String queryWithPlaceholders;
+    private Object[] queryArguments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        jdbcTemplate = database.jdbcTemplate();
+
+        jdbcTemplate.update("""
+                INSERT INTO documents (id, name, file_type, created_by, content_hash, content_size, content_stored_size)
+                SELECT uuid_generate_v7(), 'doc-' || g, 'txt', 'admin', md5('doc-' || g), 7, 7
+                FROM generate_series(1, ?) g
+                """, DOCUMENTS);
+        jdbcTemplate.update("""
+                INSERT INTO document_accesses (id, document_id, username, permissions)
+                SELECT gen_random_uuid(), d.id, 'user-' || u, 1
+                FROM (SELECT id, row_number() OVER () AS rn FROM documents) d
+                CROSS JOIN generate_series(1, ?) u
+                WHERE (d.rn + u * 7919) % 200 = 0
+                """, USERS);
+        jdbcTemplate.execute("ANALYZE");
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        index = new DocumentAccessIndex(
+                new AccessIndexProperties(true),
+                new AclDictionary(jdbcTemplate, meterRegistry),
+                jdbcTemplate,
+                new DataSourceTransactionManager(database.dataSource()),
+                meterRegistry
+        );
+        index.rebuild();
+
+        List<UUID> granted = jdbcTemplate.queryForList(
+                "SELECT document_id FROM document_accesses WHERE username = ?", UUID.class, USERNAME);
+        List<UUID> all = jdbcTemplate.queryForList(
+                "SELECT id FROM documents ORDER BY random() LIMIT ?", UUID.class, requestSize);
+
+        requestedIds = new ArrayList<>(all.subList(0, requestSize - Math.min(granted.size(), requestSize / 10)));
+        requestedIds.addAll(granted.subList(0, Math.min(granted.size(), requestSize / 10)));
+        Collections.shuffle(requestedIds);
+
+        queryWithPlaceholders = """
+                SELECT a.document_id FROM document_accesses a
+                WHERE a.document_id IN (%s)
+                AND a.username = ?
+                AND (a.permissions & ?) <> 0
+                """.formatted(String.join(", ", Collections.nCopies(requestedIds.size(), "?")));
+        List<Object> arguments = new ArrayList<>(requestedIds);
+        arguments.add(USERNAME);
+        arguments.add(Permission.READ.getMask());
+        queryArguments = arguments.toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<UUID> databaseQuery() {
+        return jdbcTemplate.queryForList(queryWithPlaceholders, UUID.class, queryArguments);
+    }
+
+    @Benchmark
+    public Optional<List<UUID>> bitmapIndex() {
+        return index.findAccessible(USERNAME, Permission.READ, requestedIds);
+    }
+}
@@ -0,0 +1,115 @@
+package com.progresssoft.docaccess.repository;
+
+import com.progresssoft.docaccess.BenchmarkDatabase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grant lookups against a plain versus a hash-partitioned {@code document_accesses} (changelog 011).
+ * Per-document lookups should cost the same, since they are pruned to one partition. Per-user pages
+ * probe every partition. After the preload a tenth of the rows is updated and the time of the
+ * following {@code VACUUM} is printed, together with the table size, after each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PartitionedAccessBenchmark {
+
+    private static final int DOCUMENTS = 200_000;
+    private static final int USERS = 20_000;
+    private static final int GRANTS_PER_DOCUMENT = 10;
+
+    @Param({"0", "16"})
+    public String partitions;
+
+    private BenchmarkDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private List<UUID> documentIds;
+    private long vacuumMillis;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start(Map.of("document-accesses-partitions", partitions));
+        jdbcTemplate = database.jdbcTemplate();
+
+        jdbcTemplate.update("""
+                INSERT INTO documents (id, name, file_type, created_by, content_hash, content_size, content_stored_size)
+                SELECT uuid_generate_v7(), 'doc-' || g, 'txt', 'admin', md5('doc-' || g), 7, 7
+                FROM generate_series(1, ?) g
+                """, DOCUMENTS);
+        jdbcTemplate.update("""
+                INSERT INTO document_accesses (id, document_id, username, permissions)
+                SELECT uuid_generate_v7(), d.id, 'user-' || ((d.rn * 7 + u * 211) % ?), 1 + ((d.rn + u) % 7)
+                FROM (SELECT id, row_number() OVER (ORDER BY id) AS rn FROM documents) d
+                CROSS JOIN generate_series(1, ?) u
+                """, USERS, GRANTS_PER_DOCUMENT);
+        jdbcTemplate.execute("VACUUM ANALYZE documents");
+        jdbcTemplate.execute("VACUUM ANALYZE document_accesses");
+
+        jdbcTemplate.update("UPDATE document_accesses SET permissions = permissions | 1 WHERE id::text LIKE '%0'");
+        long start = System.nanoTime();
+        jdbcTemplate.execute("VACUUM document_accesses");
+        vacuumMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        documentIds = jdbcTemplate.queryForList("SELECT id FROM documents", UUID.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        String size = jdbcTemplate.queryForObject(
+                "SELECT pg_size_pretty(sum(pg_total_relation_size(relid))) FROM pg_partition_tree('document_accesses')",
+                String.class
+        );
+        System.out.printf("%npartitions=%s: document_accesses %s, VACUUM after updating 10%% of rows took %d ms%n",
+                partitions, size, vacuumMillis);
+        database.close();
+    }
+
+    @Benchmark
+    public Integer permissionsByDocumentAndUser() {
+        UUID documentId = documentIds.get(ThreadLocalRandom.current().nextInt(documentIds.size()));
+        return jdbcTemplate.query(
+                "SELECT a.permissions FROM document_accesses a WHERE a.document_id = ? AND a.username = ?",
+                resultSet -> resultSet.next() ? resultSet.getInt(1) : null,
+                documentId,
+                randomUser()
+        );
+    }
+
+    @Benchmark
+    public List<UUID> accessiblePageForUser() {
+        return jdbcTemplate.queryForList("""
+                SELECT a.document_id FROM document_accesses a
+                WHERE a.username = ?
+                AND (a.permissions & 1) <> 0
+                AND a.document_id > ?
+                ORDER BY a.document_id
+                LIMIT 20
+                """, UUID.class, randomUser(), new UUID(0, 0));
+    }
+
+    private static String randomUser() {
+        return "user-" + ThreadLocalRandom.current().nextInt(USERS);
+    }
+}
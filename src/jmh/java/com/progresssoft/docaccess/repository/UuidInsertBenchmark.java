@@ -0,0 +1,119 @@
+package com.progresssoft.docaccess.repository;
+
+import com.progresssoft.docaccess.BenchmarkDatabase;
+import com.progresssoft.docaccess.entity.Document;
+import com.progresssoft.docaccess.util.Uuids;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rows per second inserted into {@code documents} through the bulk import's JDBC batch, with random
+ * (v4) versus time-ordered (v7) ids. The table is preloaded with ids of the same kind, so random
+ * inserts hit pages spread over a primary key far larger than the recent, hot ones. Primary key size
+ * and WAL written are printed after each trial; compare them between the two runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UuidInsertBenchmark {
+
+    private static final int PRELOADED = 1_000_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    public IdStrategy ids;
+
+    private BenchmarkDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+    private DocumentBatchOperationsImpl operations;
+    private String walAtStart;
+
+    public enum IdStrategy {
+        RANDOM(UUID::randomUUID, "gen_random_uuid()"),
+        TIME_ORDERED(Uuids::timeOrdered, "uuid_generate_v7()");
+
+        private final Supplier<UUID> generator;
+        private final String sqlFunction;
+
+        IdStrategy(Supplier<UUID> generator, String sqlFunction) {
+            this.generator = generator;
+            this.sqlFunction = sqlFunction;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start();
+        jdbcTemplate = database.jdbcTemplate();
+        transaction = new TransactionTemplate(new DataSourceTransactionManager(database.dataSource()));
+        operations = new DocumentBatchOperationsImpl(jdbcTemplate);
+
+        jdbcTemplate.update("""
+                INSERT INTO documents (id, name, file_type, created_by, content_hash, content_size, content_stored_size)
+                SELECT %s, 'doc-' || g, 'txt', 'admin', md5('doc-' || g), 7, 7
+                FROM generate_series(1, ?) g
+                """.formatted(ids.sqlFunction), PRELOADED);
+        jdbcTemplate.execute("VACUUM ANALYZE documents");
+        jdbcTemplate.execute("CHECKPOINT");
+        walAtStart = jdbcTemplate.queryForObject("SELECT pg_current_wal_lsn()::text", String.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Map<String, Object> stats = jdbcTemplate.queryForMap("""
+                SELECT (SELECT count(*) FROM documents) AS rows,
+                       pg_size_pretty(pg_relation_size(c.conindid)) AS primary_key,
+                       pg_relation_size(c.conindid) / (SELECT count(*) FROM documents) AS bytes_per_row,
+                       pg_size_pretty(pg_wal_lsn_diff(pg_current_wal_lsn(), ?::pg_lsn)) AS wal
+                FROM pg_constraint c
+                WHERE c.conrelid = 'documents'::regclass AND c.contype = 'p'
+                """, walAtStart);
+        System.out.printf("%n%s: %s rows, primary key %s (%s bytes/row), %s of WAL since preload%n",
+                ids, stats.get("rows"), stats.get("primary_key"), stats.get("bytes_per_row"), stats.get("wal"));
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() {
+        List<Document> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(Document.builder()
+                    .id(ids.generator.get())
+                    .name("bench")
+                    .fileType("txt")
+                    .createdBy("admin")
+                    .contentHash("0".repeat(64))
+                    .contentSize(7)
+                    .contentStoredSize(7)
+                    .build());
+        }
+        return transaction.execute(status -> operations.insertAll(batch));
+    }
+}
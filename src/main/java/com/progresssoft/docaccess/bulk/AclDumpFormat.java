@@ -0,0 +1,18 @@
+package com.progresssoft.docaccess.bulk;
+
+/** Layout of an ACL dump: {@code document_id, username, permissions} per row, permissions as a bitmask. */
+public enum AclDumpFormat {
+    CSV("FORMAT csv"),
+    CSV_WITH_HEADER("FORMAT csv, HEADER true"),
+    BINARY("FORMAT binary");
+
+    private final String copyOptions;
+
+    AclDumpFormat(String copyOptions) {
+        this.copyOptions = copyOptions;
+    }
+
+    public String copyOptions() {
+        return copyOptions;
+    }
+}
@@ -0,0 +1,32 @@
+package com.progresssoft.docaccess.bulk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/** Loads {@code docaccess.acl-load.file} and exits; run with the {@code acl-load} profile. */
+@Component
+@Profile("acl-load")
+@RequiredArgsConstructor
+public class AclLoadCommand implements ApplicationRunner {
+
+    private final AclLoader aclLoader;
+    private final AclLoadProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (properties.file() == null) {
+            throw new IllegalStateException("docaccess.acl-load.file is required with the acl-load profile");
+        }
+
+        try (InputStream input = Files.newInputStream(properties.file())) {
+            aclLoader.load(input, properties.format());
+        }
+    }
+}
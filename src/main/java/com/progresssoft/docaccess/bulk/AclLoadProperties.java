@@ -0,0 +1,17 @@
+package com.progresssoft.docaccess.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * @param file ACL dump loaded by the {@code acl-load} profile
+ * @param format layout of {@code file}
+ */
+@ConfigurationProperties(prefix = "docaccess.acl-load")
+public record AclLoadProperties(
+        Path file,
+        @DefaultValue("csv")
+        AclDumpFormat format
+) {}
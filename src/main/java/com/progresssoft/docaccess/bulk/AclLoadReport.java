@@ -0,0 +1,13 @@
+package com.progresssoft.docaccess.bulk;
+
+/**
+ * @param copied rows read from the dump
+ * @param merged (document, user) grants inserted or updated
+ * @param skipped rows for unknown documents, or with no user or no valid permission bits
+ */
+public record AclLoadReport(
+        long copied,
+        long merged,
+        long skipped,
+        long elapsedMillis
+) {}
@@ -0,0 +1,99 @@
+package com.progresssoft.docaccess.bulk;
+
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.AclBulkLoadedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Streams an ACL dump into a temporary staging table with {@code COPY ... FROM STDIN}, then merges
+ * it into {@code document_accesses} with one {@code INSERT ... ON CONFLICT} that ORs repeated rows
+ * together and into existing grants. Rows that cannot be merged are counted and left out. The whole
+ * load is one transaction: either every valid row lands or none does.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AclLoader {
+
+    private static final int ALL_PERMISSIONS = Arrays.stream(Permission.values())
+            .mapToInt(Permission::getMask)
+            .reduce(0, (left, right) -> left | right);
+
+    // no indexes or constraints: COPY only appends, the merge reads it once
+    private static final String CREATE_STAGING = """
+        CREATE TEMPORARY TABLE acl_staging (
+            document_id UUID,
+            username VARCHAR(100),
+            permissions INTEGER
+        ) ON COMMIT DROP
+        """;
+
+    private static final String VALID_ROW = """
+        s.username IS NOT NULL AND s.permissions > 0 AND (s.permissions & ~?) = 0
+        AND EXISTS (SELECT 1 FROM documents d WHERE d.id = s.document_id)
+        """;
+
+    private static final String MERGE = """
+        INSERT INTO document_accesses (id, document_id, username, permissions)
+        SELECT uuid_generate_v7(), s.document_id, s.username, bit_or(s.permissions)
+        FROM acl_staging s
+        WHERE %s
+        GROUP BY s.document_id, s.username
+        ON CONFLICT (document_id, username)
+        DO UPDATE SET permissions = document_accesses.permissions | EXCLUDED.permissions
+        """.formatted(VALID_ROW);
+
+    // IS NOT TRUE rather than NOT: a NULL column makes the check NULL, and NOT NULL would drop the row from both counts
+    private static final String COUNT_SKIPPED = "SELECT count(*) FROM acl_staging s WHERE (%s) IS NOT TRUE"
+            .formatted(VALID_ROW);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public AclLoadReport load(InputStream dump, AclDumpFormat format) {
+        long startedAt = System.nanoTime();
+        jdbcTemplate.execute(CREATE_STAGING);
+
+        long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                        "COPY acl_staging (document_id, username, permissions) FROM STDIN WITH (%s)"
+                                .formatted(format.copyOptions()),
+                        dump
+                );
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        // temporary tables are never auto-analyzed; without stats the merge plans for a tiny table
+        jdbcTemplate.execute("ANALYZE acl_staging");
+        Long skipped = jdbcTemplate.queryForObject(COUNT_SKIPPED, Long.class, ALL_PERMISSIONS);
+        int merged = jdbcTemplate.update(MERGE, ALL_PERMISSIONS);
+
+        eventPublisher.publishEvent(new AclBulkLoadedEvent(merged));
+
+        AclLoadReport report = new AclLoadReport(
+                copied,
+                merged,
+                skipped == null ? 0 : skipped,
+                (System.nanoTime() - startedAt) / 1_000_000
+        );
+        log.info("Loaded ACL dump: {} rows copied, {} grants merged, {} rows skipped in {} ms",
+                report.copied(), report.merged(), report.skipped(), report.elapsedMillis());
+        return report;
+    }
+}
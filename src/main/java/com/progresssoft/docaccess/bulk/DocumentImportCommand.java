@@ -0,0 +1,43 @@
+package com.progresssoft.docaccess.bulk;
+
+import com.progresssoft.docaccess.dto.response.ImportReport;
+import com.progresssoft.docaccess.security.UserContextHolder;
+import com.progresssoft.docaccess.service.DocumentImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Imports {@code docaccess.import.file} and exits; run with the {@code import} profile, which starts
+ * no web server. Uses the same service as {@code POST /documents/import}.
+ */
+@Slf4j
+@Component
+@Profile("import")
+@RequiredArgsConstructor
+public class DocumentImportCommand implements ApplicationRunner {
+
+    private final DocumentImportService documentImportService;
+    private final ImportProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (properties.file() == null) {
+            throw new IllegalStateException("docaccess.import.file is required with the import profile");
+        }
+
+        log.info("Importing {} as {}", properties.file(), properties.runAs());
+        try (UserContextHolder.Binding ignored = UserContextHolder.bind(properties.runAs());
+             InputStream input = Files.newInputStream(properties.file())) {
+            ImportReport report = documentImportService.importDocuments(input);
+            report.errors().forEach(error -> log.warn("Line {} skipped: {}", error.line(), error.message()));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.progresssoft.docaccess.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * @param chunkSize documents written and committed per transaction
+ * @param maxReportedErrors failed lines listed in the report; the rest are only counted
+ * @param file NDJSON file read by the {@code import} profile
+ * @param runAs user the {@code import} profile imports as, and records as creator
+ */
+@ConfigurationProperties(prefix = "docaccess.import")
+public record ImportProperties(
+        @DefaultValue("1000")
+        int chunkSize,
+        @DefaultValue("100")
+        int maxReportedErrors,
+        Path file,
+        @DefaultValue("admin")
+        String runAs
+) {}
@@ -0,0 +1,85 @@
+package com.progresssoft.docaccess.cache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over (username, documentId). Bits are set with CAS so adds may race with
+ * lookups and each other; there is no removal, stale entries only cost a database lookup.
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long insertions = Math.max(expectedInsertions, 1);
+        long optimalBits = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.bits = new AtomicLongArray(Math.toIntExact(Math.max((optimalBits + 63) >>> 6, 1)));
+        this.bitCount = (long) bits.length() << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * LN2));
+    }
+
+    void add(String username, UUID documentId) {
+        long hash1 = hash(username, documentId);
+        long hash2 = fmix64(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bits.get(word) & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (current, set) -> current | set);
+            }
+        }
+    }
+
+    boolean mightContain(String username, UUID documentId) {
+        long hash1 = hash(username, documentId);
+        long hash2 = fmix64(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Probability that an absent key is reported as present, from the share of bits already set. */
+    double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            set += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) set / bitCount, hashCount);
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private static long hash(String username, UUID documentId) {
+        long hash = fmix64(documentId.getMostSignificantBits() ^ fmix64(documentId.getLeastSignificantBits()));
+        for (int i = 0; i < username.length(); i++) {
+            hash = (hash ^ username.charAt(i)) * 0x100000001B3L;
+        }
+        return fmix64(hash);
+    }
+
+    // MurmurHash3 finalizer
+    private static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
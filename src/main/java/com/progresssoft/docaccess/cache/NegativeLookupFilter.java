@@ -0,0 +1,259 @@
+package com.progresssoft.docaccess.cache;
+
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.AclBulkLoadedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One Bloom filter per permission over the granted (username, documentId) pairs, so a definite
+ * "no grant" is answered without a query. Grants are added from plain {@code @EventListener}s,
+ * i.e. inside the granting transaction and before it commits: a reader can never see the row
+ * without the filter bit. Revoked grants keep their bits until the next rebuild, which only costs a
+ * query. Grants made by other instances are only picked up by the periodic
+ * rebuild, so this is opt-in like the access index. A rebuild's load cannot see grants whose
+ * transaction is still open, so grants stay tracked as in flight until their transaction completes
+ * and a rebuild replays the ones in flight when it starts.
+ */
+@Slf4j
+@Component
+public class NegativeLookupFilter {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private final NegativeLookupProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Counter rejections;
+    // one rebuild at a time: each owns pendingDuringRebuild from its start until it publishes
+    private final Lock rebuildLock = new ReentrantLock();
+    // keyed by the granting event, dropped once its transaction committed or rolled back
+    private final Map<Object, List<Grant>> inFlight = new IdentityHashMap<>();
+
+    private volatile BloomFilter[] filters;
+    private List<Grant> pendingDuringRebuild;
+    private boolean discardedDuringRebuild;
+
+    public NegativeLookupFilter(NegativeLookupProperties properties,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.rejections = Counter.builder("docaccess.negative.lookup.rejections")
+                .description("Permission checks answered as denied by the Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("docaccess.negative.lookup.target.false.positive.rate", properties,
+                        NegativeLookupProperties::falsePositiveRate)
+                .register(meterRegistry);
+        for (Permission permission : Permission.values()) {
+            Gauge.builder("docaccess.negative.lookup.false.positive.rate", this,
+                            filter -> filter.expectedFalsePositiveRate(permission))
+                    .tag("permission", permission.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /** {@code false} means the user definitely holds no such grant; {@code true} means "ask the database". */
+    public boolean mightBeGranted(String username, UUID documentId, Permission permission) {
+        BloomFilter[] current = filters;
+        if (current == null || current[permission.ordinal()].mightContain(username, documentId)) {
+            return true;
+        }
+
+        rejections.increment();
+        return false;
+    }
+
+    public boolean isReady() {
+        return filters != null;
+    }
+
+    public double expectedFalsePositiveRate(Permission permission) {
+        BloomFilter[] current = filters;
+        return current == null ? Double.NaN : current[permission.ordinal()].expectedFalsePositiveRate();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.enabled()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${docaccess.negative-lookup.refresh-interval:PT10M}",
+            fixedDelayString = "${docaccess.negative-lookup.refresh-interval:PT10M}"
+    )
+    public void refresh() {
+        if (properties.enabled()) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildExclusively();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildExclusively() {
+        synchronized (this) {
+            // their rows may commit after the load's snapshot, when they are no longer in flight
+            pendingDuringRebuild = new ArrayList<>();
+            inFlight.values().forEach(pendingDuringRebuild::addAll);
+            discardedDuringRebuild = false;
+        }
+
+        long startedAt = System.nanoTime();
+        BloomFilter[] fresh;
+        try {
+            fresh = readOnlyTransaction.execute(status -> load());
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+            throw ex;
+        }
+
+        synchronized (this) {
+            pendingDuringRebuild.forEach(grant -> grant.addTo(fresh));
+            pendingDuringRebuild = null;
+            if (discardedDuringRebuild) {
+                log.info("Discarded negative lookup filter rebuild, a bulk load committed while it was loading");
+                return;
+            }
+            filters = fresh;
+        }
+
+        log.info("Rebuilt negative lookup filter: {} bits x {} hashes per permission in {} ms",
+                fresh[0].bitCount(),
+                fresh[0].hashCount(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    @EventListener
+    public void onAccessGranted(DocumentAccessGrantedEvent event) {
+        add(event, List.of(new Grant(event.username(), event.documentId(), event.permission().getMask())));
+    }
+
+    @EventListener
+    public void onAccessBatchGranted(DocumentAccessBatchGrantedEvent event) {
+        add(event, event.grants().stream()
+                .map(grant -> new Grant(grant.username(), grant.documentId(), grant.permissions()))
+                .toList());
+    }
+
+    @EventListener
+    public void onDocumentCreated(DocumentCreatedEvent event) {
+        add(event, event.permissionsByUsername().entrySet().stream()
+                .map(grant -> new Grant(grant.getKey(), event.documentId(), grant.getValue()))
+                .toList());
+    }
+
+    // committed rows are seen by the next load; rolled-back ones only ever cost a false positive
+    @TransactionalEventListener(
+            phase = TransactionPhase.AFTER_COMPLETION,
+            classes = {DocumentAccessGrantedEvent.class, DocumentAccessBatchGrantedEvent.class, DocumentCreatedEvent.class}
+    )
+    public synchronized void afterGrantCompleted(Object event) {
+        inFlight.remove(event);
+    }
+
+    // too many grants to add one by one: answer "ask the database" until the rebuild after the load.
+    // A rebuild already loading may not see the loaded rows, so it must not publish either
+    @EventListener
+    public synchronized void onAclBulkLoaded(AclBulkLoadedEvent event) {
+        filters = null;
+        discardedDuringRebuild = pendingDuringRebuild != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void afterAclBulkLoaded(AclBulkLoadedEvent event) {
+        if (properties.enabled()) {
+            rebuild();
+        }
+    }
+
+    private BloomFilter[] load() {
+        Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM document_accesses", Long.class);
+        // leave headroom for grants made before the next rebuild
+        long expected = Math.max(properties.expectedInsertions(), rows == null ? 0 : rows + rows / 4);
+
+        BloomFilter[] fresh = new BloomFilter[Permission.values().length];
+        for (int i = 0; i < fresh.length; i++) {
+            fresh[i] = new BloomFilter(expected, properties.falsePositiveRate());
+        }
+
+        // the driver only honours the fetch size inside a transaction
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT username, document_id, permissions FROM document_accesses"
+                    );
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                },
+                (RowCallbackHandler) resultSet -> new Grant(
+                        resultSet.getString("username"),
+                        resultSet.getObject("document_id", UUID.class),
+                        resultSet.getInt("permissions")
+                ).addTo(fresh)
+        );
+        return fresh;
+    }
+
+    private synchronized void add(Object event, List<Grant> grants) {
+        BloomFilter[] current = filters;
+        if (current != null) {
+            grants.forEach(grant -> grant.addTo(current));
+        }
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.addAll(grants);
+        }
+        // without a transaction the rows are already committed, so any later load sees them
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            inFlight.put(event, grants);
+        }
+    }
+
+    private record Grant(String username, UUID documentId, int permissions) {
+
+        void addTo(BloomFilter[] filters) {
+            for (Permission permission : Permission.fromMask(permissions)) {
+                filters[permission.ordinal()].add(username, documentId);
+            }
+        }
+    }
+}
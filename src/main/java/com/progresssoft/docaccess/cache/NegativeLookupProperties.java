@@ -0,0 +1,14 @@
+package com.progresssoft.docaccess.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "docaccess.negative-lookup")
+public record NegativeLookupProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        @DefaultValue("1000000")
+        long expectedInsertions,
+        @DefaultValue("0.01")
+        double falsePositiveRate
+) {}
@@ -0,0 +1,16 @@
+package com.progresssoft.docaccess.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "docaccess.permission-cache")
+public record PermissionCacheProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("100000")
+        long maximumSize,
+        @DefaultValue("30s")
+        Duration expireAfterWrite
+) {}
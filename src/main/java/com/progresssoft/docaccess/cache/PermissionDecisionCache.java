@@ -0,0 +1,123 @@
+package com.progresssoft.docaccess.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.progresssoft.docaccess.event.AclBulkLoadedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessRevokedEvent;
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entries are dropped after the grant, revoke or delete that affects them commits,
+ * so a concurrent reader cannot re-cache a decision from before the change. Permissions read as a
+ * side effect of another statement are offered with {@link #putIfUnchanged}, which drops them if
+ * any invalidation ran since {@link #version()} was taken before that statement.
+ */
+@Component
+public class PermissionDecisionCache {
+
+    static final String CACHE_NAME = "permission.decisions";
+
+    private final boolean enabled;
+    private final Cache<DecisionKey, Integer> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PermissionDecisionCache(PermissionCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.expireAfterWrite())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /** The cached permissions, or {@code null} when nothing is cached or the cache is disabled. */
+    public Integer getIfPresent(String username, UUID documentId) {
+        return enabled ? cache.getIfPresent(new DecisionKey(username, documentId)) : null;
+    }
+
+    public long version() {
+        return invalidations.get();
+    }
+
+    public void putIfUnchanged(String username, UUID documentId, int permissions, long version) {
+        if (!enabled) {
+            return;
+        }
+
+        DecisionKey key = new DecisionKey(username, documentId);
+        cache.put(key, permissions);
+        // invalidations bump the version before removing, so either this sees the bump or the removal
+        // comes after the put
+        if (invalidations.get() != version) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidate(String username, UUID documentId) {
+        invalidations.incrementAndGet();
+        cache.invalidate(new DecisionKey(username, documentId));
+    }
+
+    public void invalidateDocument(UUID documentId) {
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.documentId().equals(documentId));
+    }
+
+    public void invalidateUser(String username) {
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.username().equals(username));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessGranted(DocumentAccessGrantedEvent event) {
+        invalidate(event.username(), event.documentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessBatchGranted(DocumentAccessBatchGrantedEvent event) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll(event.grants().stream()
+                .map(grant -> new DecisionKey(grant.username(), grant.documentId()))
+                .toList());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessRevoked(DocumentAccessRevokedEvent event) {
+        if (event.documentId() == null) {
+            invalidateUser(event.username());
+        } else if (event.username() == null) {
+            invalidateDocument(event.documentId());
+        } else {
+            invalidate(event.username(), event.documentId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        invalidateDocument(event.documentId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAclBulkLoaded(AclBulkLoadedEvent event) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    record DecisionKey(String username, UUID documentId) {}
+}
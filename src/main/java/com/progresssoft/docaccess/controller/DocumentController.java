@@ -1,18 +1,35 @@
 package com.progresssoft.docaccess.controller;
 
 import com.progresssoft.docaccess.dto.request.BatchAccessRequest;
+import com.progresssoft.docaccess.dto.request.BatchGrantRequest;
 import com.progresssoft.docaccess.dto.request.CreateDocumentRequest;
 import com.progresssoft.docaccess.dto.request.GrantPermissionRequest;
+import com.progresssoft.docaccess.dto.request.UploadDocumentRequest;
 import com.progresssoft.docaccess.dto.response.BatchAccessResponse;
+import com.progresssoft.docaccess.dto.response.BatchGrantResponse;
+import com.progresssoft.docaccess.dto.response.DocumentPageResponse;
 import com.progresssoft.docaccess.dto.response.DocumentResponse;
+import com.progresssoft.docaccess.dto.response.DocumentSummaryResponse;
+import com.progresssoft.docaccess.dto.response.ImportReport;
+import com.progresssoft.docaccess.dto.response.RevokeResponse;
+import com.progresssoft.docaccess.dto.response.VersionedResponse;
 import com.progresssoft.docaccess.service.DocumentAccessService;
+import com.progresssoft.docaccess.service.DocumentExportService;
+import com.progresssoft.docaccess.service.DocumentImportService;
 import com.progresssoft.docaccess.service.DocumentService;
+import com.progresssoft.docaccess.storage.ContentDelivery;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,6 +41,11 @@ public class DocumentController {
 
     private final DocumentService documentService;
     private final DocumentAccessService documentAccessService;
+    private final DocumentExportService documentExportService;
+    private final DocumentImportService documentImportService;
+    private final ContentDelivery contentDelivery;
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @PostMapping
     public ResponseEntity<DocumentResponse> createDocument(
@@ -34,17 +56,68 @@ public class DocumentController {
                 .body(documentService.createDocument(request));
     }
 
+    @PostMapping("/upload")
+    public ResponseEntity<DocumentSummaryResponse> uploadDocument(
+            @Valid @ModelAttribute UploadDocumentRequest request,
+            InputStream content) throws IOException {
+
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(documentService.uploadDocument(request, content));
+    }
+
     @GetMapping
-    public ResponseEntity<List<DocumentResponse>> getAllDocuments() {
+    public ResponseEntity<List<DocumentSummaryResponse>> getAllDocuments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+
+        DocumentPageResponse page = documentService.getAccessibleDocuments(cursor, size);
+        if (page.nextCursor() == null) {
+            return ResponseEntity.ok(page.documents());
+        }
+
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, page.nextCursor())
+                .body(page.documents());
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportDocuments(HttpServletResponse response) throws IOException {
 
-        return ResponseEntity.ok(documentService.getAllAccessibleDocuments());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        documentExportService.exportAccessibleDocuments(response.getOutputStream());
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importDocuments(InputStream body) throws IOException {
+
+        return ResponseEntity.ok(documentImportService.importDocuments(body));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<DocumentResponse> getDocumentById(
-            @PathVariable UUID id) {
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        VersionedResponse<DocumentResponse> document = documentService.getDocumentById(id, ifNoneMatch);
+        if (document.isNotModified()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(document.etag())
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(document.etag())
+                .body(document.body());
+    }
+
+    @GetMapping(value = "/{id}/content", produces = MediaType.TEXT_PLAIN_VALUE)
+    public void getDocumentContent(
+            @PathVariable UUID id,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
-        return ResponseEntity.ok(documentService.getDocumentById(id));
+        contentDelivery.deliver(documentService.getDocumentContent(id), request, response);
     }
 
     @DeleteMapping("/{id}")
@@ -64,6 +137,35 @@ public class DocumentController {
         return ResponseEntity.ok().build();
     }
 
+    @DeleteMapping("/{id}/grants/{username}")
+    public ResponseEntity<RevokeResponse> revokePermission(
+            @PathVariable UUID id,
+            @PathVariable String username) {
+
+        return ResponseEntity.ok(documentAccessService.revokePermission(id, username));
+    }
+
+    @DeleteMapping("/{id}/grants")
+    public ResponseEntity<RevokeResponse> revokeDocumentPermissions(
+            @PathVariable UUID id) {
+
+        return ResponseEntity.ok(documentAccessService.revokeDocumentPermissions(id));
+    }
+
+    @DeleteMapping("/grants")
+    public ResponseEntity<RevokeResponse> revokeUserPermissions(
+            @RequestParam String username) {
+
+        return ResponseEntity.ok(documentAccessService.revokeUserPermissions(username));
+    }
+
+    @PostMapping("/grants:batch")
+    public ResponseEntity<BatchGrantResponse> grantPermissions(
+            @Valid @RequestBody BatchGrantRequest request) {
+
+        return ResponseEntity.ok(documentAccessService.grantPermissions(request));
+    }
+
     @PostMapping("/access-check")
     public ResponseEntity<BatchAccessResponse> batchAccessCheck(
             @Valid @RequestBody BatchAccessRequest request) {
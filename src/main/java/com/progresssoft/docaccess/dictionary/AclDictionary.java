@@ -0,0 +1,242 @@
+package com.progresssoft.docaccess.dictionary;
+
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stable dense int ids for usernames and documents, backed by {@code acl_user_ids} and
+ * {@code acl_document_ids}. Rows are created by the {@code intern_acl_keys} trigger whenever a grant
+ * is inserted, so every write path (JPA, native upserts, bulk loads) is covered; this class only
+ * mirrors the tables in memory and falls back to the database for ids it has not seen yet.
+ */
+@Slf4j
+@Component
+public class AclDictionary {
+
+    public static final int MISSING = -1;
+
+    // String header and its byte array header; the characters come on top
+    private static final int USERNAME_OVERHEAD_BYTES = 40;
+
+    private static final String INTERN_USER = """
+            WITH inserted AS (
+                INSERT INTO acl_user_ids (username)
+                SELECT ? WHERE NOT EXISTS (SELECT 1 FROM acl_user_ids WHERE username = ?)
+                ON CONFLICT (username) DO NOTHING
+                RETURNING id
+            )
+            SELECT id FROM inserted
+            UNION ALL
+            SELECT id FROM acl_user_ids WHERE username = ?
+            """;
+
+    private static final String INTERN_DOCUMENT = """
+            WITH inserted AS (
+                INSERT INTO acl_document_ids (document_id)
+                SELECT ? WHERE NOT EXISTS (SELECT 1 FROM acl_document_ids WHERE document_id = ?)
+                ON CONFLICT (document_id) DO NOTHING
+                RETURNING id
+            )
+            SELECT id FROM inserted
+            UNION ALL
+            SELECT id FROM acl_document_ids WHERE document_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final StringIntHashMap userIds = new StringIntHashMap(1024, MISSING);
+    private final UuidIntHashMap documentIds = new UuidIntHashMap(1024, MISSING);
+
+    private long userCharacters;
+
+    public AclDictionary(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("docaccess.acl.dictionary.size", this, AclDictionary::userCount)
+                .tag("key", "username")
+                .register(meterRegistry);
+        Gauge.builder("docaccess.acl.dictionary.size", this, AclDictionary::documentCount)
+                .tag("key", "document")
+                .register(meterRegistry);
+        Gauge.builder("docaccess.acl.dictionary.memory", this, AclDictionary::footprintBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+    }
+
+    // called by the access index before its first rebuild; nothing else needs the ids in memory
+    public void load() {
+        jdbcTemplate.query("SELECT id, username FROM acl_user_ids", resultSet -> {
+            registerUser(resultSet.getInt("id"), resultSet.getString("username"));
+        });
+        jdbcTemplate.query("SELECT id, document_id FROM acl_document_ids", resultSet -> {
+            registerDocument(resultSet.getInt("id"), resultSet.getObject("document_id", UUID.class));
+        });
+        log.info("Loaded ACL dictionary: {} users, {} documents", userCount(), documentCount());
+    }
+
+    public int findUserId(String username) {
+        lock.readLock().lock();
+        try {
+            return userIds.get(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int findDocumentId(UUID documentId) {
+        lock.readLock().lock();
+        try {
+            return documentIds.get(documentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int internUser(String username) {
+        int id = findUserId(username);
+        if (id != MISSING) {
+            return id;
+        }
+
+        id = queryId(INTERN_USER, username, username, username);
+        registerUser(id, username);
+        return id;
+    }
+
+    public int internDocument(UUID documentId) {
+        int id = findDocumentId(documentId);
+        if (id != MISSING) {
+            return id;
+        }
+
+        id = queryId(INTERN_DOCUMENT, documentId, documentId, documentId);
+        registerDocument(id, documentId);
+        return id;
+    }
+
+    /**
+     * Resolves the keys not seen yet with one query per table, so interning them one by one afterwards
+     * stays in memory. The grants were written before this runs, so their trigger already assigned the ids.
+     */
+    public void internAll(Collection<String> usernames, Collection<UUID> documentIds) {
+        Object[] missingUsers = usernames.stream()
+                .distinct()
+                .filter(username -> findUserId(username) == MISSING)
+                .toArray();
+        if (missingUsers.length > 0) {
+            jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(
+                                "SELECT id, username FROM acl_user_ids WHERE username = ANY (?)"
+                        );
+                        statement.setArray(1, connection.createArrayOf("text", missingUsers));
+                        return statement;
+                    },
+                    (RowCallbackHandler) resultSet -> registerUser(resultSet.getInt("id"), resultSet.getString("username"))
+            );
+        }
+
+        Object[] missingDocuments = documentIds.stream()
+                .distinct()
+                .filter(documentId -> findDocumentId(documentId) == MISSING)
+                .toArray();
+        if (missingDocuments.length > 0) {
+            jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(
+                                "SELECT id, document_id FROM acl_document_ids WHERE document_id = ANY (?)"
+                        );
+                        statement.setArray(1, connection.createArrayOf("uuid", missingDocuments));
+                        return statement;
+                    },
+                    (RowCallbackHandler) resultSet ->
+                            registerDocument(resultSet.getInt("id"), resultSet.getObject("document_id", UUID.class))
+            );
+        }
+    }
+
+    public void registerUser(int id, String username) {
+        lock.writeLock().lock();
+        try {
+            if (userIds.put(username, id) == MISSING) {
+                userCharacters += username.length();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void registerDocument(int id, UUID documentId) {
+        lock.writeLock().lock();
+        try {
+            documentIds.put(documentId, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            documentIds.remove(event.documentId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int userCount() {
+        lock.readLock().lock();
+        try {
+            return userIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documentIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            return userIds.footprintBytes()
+                    + (long) userIds.size() * USERNAME_OVERHEAD_BYTES
+                    + userCharacters
+                    + documentIds.footprintBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // a concurrent intern can commit between the CTE's snapshot and ours, so look once more
+    private int queryId(String sql, Object... arguments) {
+        for (int attempt = 0; attempt < 2; attempt++) {
+            List<Integer> ids = jdbcTemplate.queryForList(sql, Integer.class, arguments);
+            if (!ids.isEmpty()) {
+                return ids.getFirst();
+            }
+        }
+        throw new IllegalStateException("Could not intern ACL key " + arguments[0]);
+    }
+}
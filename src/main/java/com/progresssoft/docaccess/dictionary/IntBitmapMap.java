@@ -0,0 +1,65 @@
+package com.progresssoft.docaccess.dictionary;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+
+/**
+ * Dense int → bitmap map. Keys are dictionary ids, so the table is a plain array indexed by key
+ * and a lookup is one bounds check. Not thread-safe.
+ */
+public final class IntBitmapMap {
+
+    private RoaringBitmap[] bitmaps;
+
+    public IntBitmapMap(int expectedKeys) {
+        this.bitmaps = new RoaringBitmap[Math.max(expectedKeys, 16)];
+    }
+
+    public RoaringBitmap get(int key) {
+        return key >= 0 && key < bitmaps.length ? bitmaps[key] : null;
+    }
+
+    public void add(int key, int value) {
+        if (key >= bitmaps.length) {
+            bitmaps = Arrays.copyOf(bitmaps, Math.max(key + 1, bitmaps.length << 1));
+        }
+        if (bitmaps[key] == null) {
+            bitmaps[key] = new RoaringBitmap();
+        }
+        bitmaps[key].add(value);
+    }
+
+    public void remove(int key) {
+        if (key >= 0 && key < bitmaps.length) {
+            bitmaps[key] = null;
+        }
+    }
+
+    /** Removes {@code value} from every bitmap; a full scan, for rare changes such as revoking a whole document. */
+    public void removeValue(int value) {
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                bitmap.remove(value);
+            }
+        }
+    }
+
+    public void runOptimize() {
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                bitmap.runOptimize();
+            }
+        }
+    }
+
+    public long footprintBytes() {
+        long bytes = (long) bitmaps.length * Long.BYTES;
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+}
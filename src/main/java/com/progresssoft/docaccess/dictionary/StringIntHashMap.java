@@ -0,0 +1,91 @@
+package com.progresssoft.docaccess.dictionary;
+
+/**
+ * Open-addressing String → int map for usernames. Keys and values live in two parallel arrays,
+ * so an entry costs one reference and one int of table space instead of a node and a boxed
+ * Integer. Entries are never removed. Not thread-safe.
+ */
+public final class StringIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final int missingValue;
+    private String[] keys;
+    private int[] values;
+    private int size;
+
+    public StringIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(UuidIntHashMap.tableSizeFor((int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR)));
+    }
+
+    public int get(String key) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) {
+                return values[slot];
+            }
+        }
+        return missingValue;
+    }
+
+    /** Returns the value previously held for {@code key}, or the missing value for a new key. */
+    public int put(String key, int value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+        return insert(key, value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long footprintBytes() {
+        // compressed references: 4 bytes per key slot
+        return (long) keys.length * (Integer.BYTES + Integer.BYTES);
+    }
+
+    private int insert(String key, int value) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return missingValue;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldValues = values;
+
+        allocate(capacity);
+        size = 0;
+
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != null) {
+                insert(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new int[capacity];
+    }
+
+    // String.hashCode of short usernames differs mostly in the low bits, spread them over the table
+    private static int mix(String key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
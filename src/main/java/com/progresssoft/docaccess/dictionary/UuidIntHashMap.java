@@ -0,0 +1,135 @@
+package com.progresssoft.docaccess.dictionary;
+
+import java.util.UUID;
+
+/**
+ * Open-addressing UUID → int map that stores both halves of the key as longs, so lookups
+ * allocate nothing and an entry costs 20 bytes of table space instead of a boxed node.
+ * Not thread-safe.
+ */
+public final class UuidIntHashMap {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final int missingValue;
+    private long[] mostSignificant;
+    private long[] leastSignificant;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+
+    public UuidIntHashMap(int expectedSize, int missingValue) {
+        int capacity = tableSizeFor((int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR));
+        this.missingValue = missingValue;
+        allocate(capacity);
+    }
+
+    public int get(UUID key) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        int mask = values.length - 1;
+        for (int slot = mix(msb, lsb) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                return values[slot];
+            }
+        }
+        return missingValue;
+    }
+
+    public void put(UUID key, int value) {
+        if (size + 1 > values.length * LOAD_FACTOR) {
+            resize(values.length << 1);
+        }
+        insert(key.getMostSignificantBits(), key.getLeastSignificantBits(), value);
+    }
+
+    public int remove(UUID key) {
+        long msb = key.getMostSignificantBits();
+        long lsb = key.getLeastSignificantBits();
+        int mask = values.length - 1;
+        for (int slot = mix(msb, lsb) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                int removed = values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+        }
+        return missingValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long footprintBytes() {
+        return (long) values.length * (Long.BYTES + Long.BYTES + Integer.BYTES + 1);
+    }
+
+    static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+    }
+
+    private void insert(long msb, long lsb, int value) {
+        int mask = values.length - 1;
+        int slot = mix(msb, lsb) & mask;
+        while (used[slot]) {
+            if (mostSignificant[slot] == msb && leastSignificant[slot] == lsb) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        used[slot] = true;
+        mostSignificant[slot] = msb;
+        leastSignificant[slot] = lsb;
+        values[slot] = value;
+        size++;
+    }
+
+    private void shiftBack(int emptied) {
+        int mask = values.length - 1;
+        int gap = emptied;
+        int slot = (gap + 1) & mask;
+        while (used[slot]) {
+            int home = mix(mostSignificant[slot], leastSignificant[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                mostSignificant[gap] = mostSignificant[slot];
+                leastSignificant[gap] = leastSignificant[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[gap] = false;
+    }
+
+    private void resize(int capacity) {
+        long[] oldMost = mostSignificant;
+        long[] oldLeast = leastSignificant;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(capacity);
+        size = 0;
+
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldUsed[slot]) {
+                insert(oldMost[slot], oldLeast[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostSignificant = new long[capacity];
+        leastSignificant = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    private static int mix(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,19 @@
+package com.progresssoft.docaccess.dto.request;
+
+import com.progresssoft.docaccess.enums.Permission;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record BatchGrantItem(
+
+        @NotNull(message = "Document ID is required")
+        UUID documentId,
+
+        @NotBlank(message = "Username is required")
+        String username,
+
+        @NotNull(message = "Permission is required")
+        Permission permission
+) {}
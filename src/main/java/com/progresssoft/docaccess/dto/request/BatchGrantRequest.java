@@ -0,0 +1,16 @@
+package com.progresssoft.docaccess.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchGrantRequest(
+
+        @NotEmpty(message = "Grants cannot be empty")
+        @Size(max = BatchGrantRequest.MAX_GRANTS, message = "At most " + BatchGrantRequest.MAX_GRANTS + " grants per request")
+        List<@Valid BatchGrantItem> grants
+) {
+    public static final int MAX_GRANTS = 10_000;
+}
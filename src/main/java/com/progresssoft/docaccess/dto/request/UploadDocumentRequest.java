@@ -0,0 +1,36 @@
+package com.progresssoft.docaccess.dto.request;
+
+
+import com.progresssoft.docaccess.enums.Permission;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+import java.util.List;
+
+/**
+ * Metadata of a streamed upload, bound from query parameters. Grants come as repeated
+ * {@code access=<username>:<PERMISSION>} parameters since the body is the content itself.
+ */
+public record UploadDocumentRequest(
+        @NotBlank
+        String name,
+        @NotBlank
+        String fileType,
+        List<@Pattern(regexp = "[^:]+:(READ|WRITE|DELETE)", message = "must be <username>:<READ|WRITE|DELETE>") String> access
+) {
+
+    public List<AccessibleUsersRequest> accessibleUsers() {
+        if (access == null) {
+            return List.of();
+        }
+        return access.stream()
+                .map(grant -> {
+                    int separator = grant.lastIndexOf(':');
+                    return new AccessibleUsersRequest(
+                            grant.substring(0, separator),
+                            Permission.valueOf(grant.substring(separator + 1))
+                    );
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,9 @@
+package com.progresssoft.docaccess.dto.response;
+
+import java.util.List;
+
+/** One result per requested grant, in request order. */
+public record BatchGrantResponse(
+        int granted,
+        List<BatchGrantResult> results
+) {}
@@ -0,0 +1,13 @@
+package com.progresssoft.docaccess.dto.response;
+
+import com.progresssoft.docaccess.enums.GrantStatus;
+import com.progresssoft.docaccess.enums.Permission;
+
+import java.util.UUID;
+
+public record BatchGrantResult(
+        UUID documentId,
+        String username,
+        Permission permission,
+        GrantStatus status
+) {}
@@ -0,0 +1,8 @@
+package com.progresssoft.docaccess.dto.response;
+
+import java.util.List;
+
+public record DocumentPageResponse(
+        List<DocumentSummaryResponse> documents,
+        String nextCursor
+) {}
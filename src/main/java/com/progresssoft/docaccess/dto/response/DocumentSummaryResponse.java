@@ -0,0 +1,12 @@
+package com.progresssoft.docaccess.dto.response;
+
+import java.util.UUID;
+
+public record DocumentSummaryResponse(
+        UUID id,
+        String name,
+        String fileType,
+        String createdBy,
+        long size,
+        String hash
+) {}
@@ -0,0 +1,6 @@
+package com.progresssoft.docaccess.dto.response;
+
+public record ImportLineError(
+        long line,
+        String message
+) {}
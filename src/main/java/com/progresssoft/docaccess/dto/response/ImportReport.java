@@ -0,0 +1,13 @@
+package com.progresssoft.docaccess.dto.response;
+
+import java.util.List;
+
+/** Outcome of a bulk import; {@code errors} is capped, {@code failed} is not. */
+public record ImportReport(
+        long imported,
+        long failed,
+        long grants,
+        long elapsedMillis,
+        double documentsPerSecond,
+        List<ImportLineError> errors
+) {}
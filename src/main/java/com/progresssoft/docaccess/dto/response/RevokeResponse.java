@@ -0,0 +1,6 @@
+package com.progresssoft.docaccess.dto.response;
+
+/** Number of (document, user) grants deleted. */
+public record RevokeResponse(
+        long revoked
+) {}
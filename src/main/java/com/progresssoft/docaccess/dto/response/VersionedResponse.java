@@ -0,0 +1,16 @@
+package com.progresssoft.docaccess.dto.response;
+
+/** A response body with its strong ETag; the body is null when the caller already has this version. */
+public record VersionedResponse<T>(
+        String etag,
+        T body
+) {
+
+    public static <T> VersionedResponse<T> notModified(String etag) {
+        return new VersionedResponse<>(etag, null);
+    }
+
+    public boolean isNotModified() {
+        return body == null;
+    }
+}
@@ -1,9 +1,11 @@
 package com.progresssoft.docaccess.entity;
 
 
+import com.progresssoft.docaccess.storage.ContentEncoding;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,7 +21,8 @@ import java.util.UUID;
 public class Document {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     private UUID id;
 
     @NotBlank(message = "name is required")
@@ -27,8 +30,8 @@ public class Document {
     private String name;
 
 
-    @NotBlank(message = "content is required")
-    @Column(nullable = false, columnDefinition = "TEXT")
+    // only set on rows created before the content store; the body lives there, addressed by contentHash
+    @Column(columnDefinition = "TEXT")
     private String content;
 
 
@@ -37,6 +40,24 @@ public class Document {
     private String fileType;
 
 
+    @Column(nullable = false)
+    private long contentSize;
+
+
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Builder.Default
+    private ContentEncoding contentEncoding = ContentEncoding.IDENTITY;
+
+
+    @Column(nullable = false)
+    private long contentStoredSize;
+
+
     @OneToMany(mappedBy = "document", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<DocumentAccess> accessList = new ArrayList<>();
@@ -44,5 +65,4 @@ public class Document {
     @NotBlank
     @Column(nullable = false, updatable = false)
     private String createdBy;
-
 }
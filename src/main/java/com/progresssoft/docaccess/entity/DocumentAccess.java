@@ -1,11 +1,12 @@
 package com.progresssoft.docaccess.entity;
 
 
-import com.progresssoft.docaccess.enums.Permission;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.util.UUID;
 
@@ -13,7 +14,7 @@ import java.util.UUID;
 @Table(
         name = "document_accesses",
         uniqueConstraints = {
-                @UniqueConstraint(columnNames = {"document_id", "username", "permission"})
+                @UniqueConstraint(columnNames = {"document_id", "username"})
         }
 )
 @Getter
@@ -24,7 +25,8 @@ import java.util.UUID;
 public class DocumentAccess {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedValue
+    @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
     private UUID id;
 
     @NotBlank(message = "Username is required")
@@ -32,10 +34,9 @@ public class DocumentAccess {
     private String username;
 
 
-    @NotNull(message = "Permission is required")
-    @Enumerated(EnumType.STRING)
+    @Positive(message = "At least one permission is required")
     @Column(nullable = false)
-    private Permission permission;
+    private int permissions;
 
     @NotNull(message = "Document is required")
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,5 @@
+package com.progresssoft.docaccess.enums;
+
+public enum GrantStatus {
+    GRANTED, NOT_FOUND, FORBIDDEN
+}
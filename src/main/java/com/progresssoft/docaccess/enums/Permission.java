@@ -1,5 +1,32 @@
 package com.progresssoft.docaccess.enums;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
 public enum Permission {
-    READ, WRITE, DELETE
+    READ(1), WRITE(2), DELETE(4);
+
+    private final int mask;
+
+    public boolean isGrantedBy(int permissions) {
+        return (permissions & mask) != 0;
+    }
+
+    public static int toMask(Collection<Permission> permissions) {
+        return permissions.stream()
+                .mapToInt(Permission::getMask)
+                .reduce(0, (left, right) -> left | right);
+    }
+
+    public static List<Permission> fromMask(int permissions) {
+        return Arrays.stream(values())
+                .filter(permission -> permission.isGrantedBy(permissions))
+                .toList();
+    }
 }
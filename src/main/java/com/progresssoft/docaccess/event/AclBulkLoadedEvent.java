@@ -0,0 +1,6 @@
+package com.progresssoft.docaccess.event;
+
+/** Published when grants were written in bulk, too many to describe one by one. */
+public record AclBulkLoadedEvent(
+        long mergedRows
+) {}
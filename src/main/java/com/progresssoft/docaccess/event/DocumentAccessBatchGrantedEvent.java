@@ -0,0 +1,17 @@
+package com.progresssoft.docaccess.event;
+
+import java.util.List;
+import java.util.UUID;
+
+/** One event for a whole batch grant, so listeners apply it in bulk; one entry per (document, user). */
+public record DocumentAccessBatchGrantedEvent(
+        List<Grant> grants
+) {
+
+    /** {@code permissions} is the mask ORed into the grant. */
+    public record Grant(
+            UUID documentId,
+            String username,
+            int permissions
+    ) {}
+}
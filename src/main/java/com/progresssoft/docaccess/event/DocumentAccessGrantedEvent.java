@@ -0,0 +1,11 @@
+package com.progresssoft.docaccess.event;
+
+import com.progresssoft.docaccess.enums.Permission;
+
+import java.util.UUID;
+
+public record DocumentAccessGrantedEvent(
+        UUID documentId,
+        String username,
+        Permission permission
+) {}
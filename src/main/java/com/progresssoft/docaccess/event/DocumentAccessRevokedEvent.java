@@ -0,0 +1,19 @@
+package com.progresssoft.docaccess.event;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Grants were deleted; a {@code null} document or username stands for all of them. {@code usernames}
+ * lists whose grants were deleted, also when {@code username} is {@code null}.
+ */
+public record DocumentAccessRevokedEvent(
+        UUID documentId,
+        String username,
+        List<String> usernames
+) {
+
+    public DocumentAccessRevokedEvent(UUID documentId, String username) {
+        this(documentId, username, username == null ? List.of() : List.of(username));
+    }
+}
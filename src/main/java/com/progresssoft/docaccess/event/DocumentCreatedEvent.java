@@ -0,0 +1,9 @@
+package com.progresssoft.docaccess.event;
+
+import java.util.Map;
+import java.util.UUID;
+
+public record DocumentCreatedEvent(
+        UUID documentId,
+        Map<String, Integer> permissionsByUsername
+) {}
@@ -0,0 +1,15 @@
+package com.progresssoft.docaccess.event;
+
+import java.util.List;
+import java.util.UUID;
+
+/** {@code grantees} held a grant on the document, deleted along with it. */
+public record DocumentDeletedEvent(
+        UUID documentId,
+        List<String> grantees
+) {
+
+    public DocumentDeletedEvent(UUID documentId) {
+        this(documentId, List.of());
+    }
+}
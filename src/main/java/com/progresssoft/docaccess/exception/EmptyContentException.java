@@ -0,0 +1,11 @@
+package com.progresssoft.docaccess.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class EmptyContentException extends RuntimeException {
+    public EmptyContentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.progresssoft.docaccess.index;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "docaccess.access-index")
+public record AccessIndexProperties(
+        @DefaultValue("false")
+        boolean enabled
+) {}
@@ -0,0 +1,392 @@
+package com.progresssoft.docaccess.index;
+
+import com.progresssoft.docaccess.dictionary.AclDictionary;
+import com.progresssoft.docaccess.dictionary.IntBitmapMap;
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.AclBulkLoadedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessRevokedEvent;
+import com.progresssoft.docaccess.event.DocumentCreatedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory permission → user id → document id bitmaps, so a batch check is a bitmap intersection.
+ * Ids come from {@link AclDictionary}; a deleted document simply stops resolving there, and its bits
+ * are dropped by the next rebuild. Changes made by other instances only show up after the periodic
+ * rebuild, which is why it is opt-in.
+ */
+@Slf4j
+@Component
+public class DocumentAccessIndex {
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String SNAPSHOT_QUERY = """
+            SELECT u.id AS user_id, u.username, d.id AS document_key, d.document_id, a.permissions
+            FROM document_accesses a
+            JOIN acl_user_ids u ON u.username = a.username
+            JOIN acl_document_ids d ON d.document_id = a.document_id
+            """;
+
+    private final boolean enabled;
+    private final AclDictionary dictionary;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // one rebuild at a time: each owns pendingDuringRebuild from its start until it publishes
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private Snapshot snapshot;
+    private List<Consumer<Snapshot>> pendingDuringRebuild;
+    private boolean discardedDuringRebuild;
+
+    public DocumentAccessIndex(AccessIndexProperties properties,
+                               AclDictionary dictionary,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.dictionary = dictionary;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        Gauge.builder("docaccess.access.index.memory", this, DocumentAccessIndex::footprintBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+    }
+
+    public Optional<List<UUID>> findAccessible(String username, Permission permission, List<UUID> documentIds) {
+        lock.readLock().lock();
+        try {
+            if (snapshot == null) {
+                return Optional.empty();
+            }
+            return Optional.of(snapshot.intersect(dictionary, username, permission, documentIds));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return snapshot != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long footprintBytes() {
+        lock.readLock().lock();
+        try {
+            return snapshot == null ? 0 : snapshot.footprintBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            dictionary.load();
+            rebuild();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${docaccess.access-index.refresh-interval:PT5M}",
+            fixedDelayString = "${docaccess.access-index.refresh-interval:PT5M}"
+    )
+    public void refresh() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuildExclusively();
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuildExclusively() {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+            discardedDuringRebuild = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Snapshot fresh = new Snapshot();
+        long startedAt = System.nanoTime();
+        try {
+            // the driver only honours the fetch size inside a transaction
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                    connection -> {
+                        PreparedStatement statement = connection.prepareStatement(SNAPSHOT_QUERY);
+                        statement.setFetchSize(FETCH_SIZE);
+                        return statement;
+                    },
+                    (RowCallbackHandler) resultSet -> {
+                        int userId = resultSet.getInt("user_id");
+                        int documentKey = resultSet.getInt("document_key");
+                        dictionary.registerUser(userId, resultSet.getString("username"));
+                        dictionary.registerDocument(documentKey, resultSet.getObject("document_id", UUID.class));
+                        fresh.grant(userId, documentKey, resultSet.getInt("permissions"));
+                    }
+            ));
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(mutation -> mutation.accept(fresh));
+            pendingDuringRebuild = null;
+            if (discardedDuringRebuild) {
+                log.warn("Discarded document access index rebuild, a change could not be applied while it was loading");
+                return;
+            }
+            fresh.runOptimize();
+            snapshot = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Rebuilt document access index: {} users, {} documents, {} bytes in {} ms",
+                dictionary.userCount(),
+                dictionary.documentCount(),
+                fresh.footprintBytes(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    // the listeners below run after the write committed: when the index is off they must not cost a
+    // query, and a failure must not turn the committed write into an error response
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessGranted(DocumentAccessGrantedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            int userId = dictionary.internUser(event.username());
+            int documentKey = dictionary.internDocument(event.documentId());
+            apply(index -> index.grant(userId, documentKey, event.permission().getMask()));
+        } catch (RuntimeException ex) {
+            discard(ex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessBatchGranted(DocumentAccessBatchGrantedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            dictionary.internAll(
+                    event.grants().stream().map(DocumentAccessBatchGrantedEvent.Grant::username).toList(),
+                    event.grants().stream().map(DocumentAccessBatchGrantedEvent.Grant::documentId).toList()
+            );
+            List<int[]> grants = new ArrayList<>(event.grants().size());
+            event.grants().forEach(grant -> grants.add(new int[]{
+                    dictionary.internUser(grant.username()),
+                    dictionary.internDocument(grant.documentId()),
+                    grant.permissions()
+            }));
+
+            apply(index -> grants.forEach(grant -> index.grant(grant[0], grant[1], grant[2])));
+        } catch (RuntimeException ex) {
+            discard(ex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentCreated(DocumentCreatedEvent event) {
+        if (!enabled || event.permissionsByUsername().isEmpty()) {
+            return;
+        }
+
+        try {
+            // resolve ids outside the lock, interning may hit the database
+            int documentKey = dictionary.internDocument(event.documentId());
+            List<int[]> grants = new ArrayList<>(event.permissionsByUsername().size());
+            event.permissionsByUsername().forEach((username, permissions) ->
+                    grants.add(new int[]{dictionary.internUser(username), permissions}));
+
+            apply(index -> grants.forEach(grant -> index.grant(grant[0], documentKey, grant[1])));
+        } catch (RuntimeException ex) {
+            discard(ex);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessRevoked(DocumentAccessRevokedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        // ids the dictionary has never seen cannot have bits in the index
+        int userId = event.username() == null ? AclDictionary.MISSING : dictionary.findUserId(event.username());
+        int documentKey = event.documentId() == null ? AclDictionary.MISSING : dictionary.findDocumentId(event.documentId());
+
+        if (event.documentId() == null) {
+            if (userId != AclDictionary.MISSING) {
+                apply(index -> index.revokeUser(userId));
+            }
+        } else if (event.username() == null) {
+            if (documentKey != AclDictionary.MISSING) {
+                apply(index -> index.revokeDocument(documentKey));
+            }
+        } else if (userId != AclDictionary.MISSING && documentKey != AclDictionary.MISSING) {
+            apply(index -> index.revoke(userId, documentKey));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAclBulkLoaded(AclBulkLoadedEvent event) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // a snapshot missing a grant would answer "no access" until the next rebuild; answer from the database instead
+    private void discard(RuntimeException cause) {
+        log.warn("Dropping document access index until the next rebuild, a grant could not be applied", cause);
+        lock.writeLock().lock();
+        try {
+            snapshot = null;
+            discardedDuringRebuild = pendingDuringRebuild != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Snapshot> mutation) {
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                mutation.accept(snapshot);
+            }
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(mutation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static final class Snapshot {
+
+        private final IntBitmapMap[] usersByPermission = new IntBitmapMap[Permission.values().length];
+
+        Snapshot() {
+            for (int i = 0; i < usersByPermission.length; i++) {
+                usersByPermission[i] = new IntBitmapMap(1024);
+            }
+        }
+
+        void grant(int userId, int documentKey, int permissions) {
+            for (Permission permission : Permission.fromMask(permissions)) {
+                usersByPermission[permission.ordinal()].add(userId, documentKey);
+            }
+        }
+
+        void revoke(int userId, int documentKey) {
+            for (IntBitmapMap users : usersByPermission) {
+                RoaringBitmap granted = users.get(userId);
+                if (granted != null) {
+                    granted.remove(documentKey);
+                }
+            }
+        }
+
+        void revokeUser(int userId) {
+            for (IntBitmapMap users : usersByPermission) {
+                users.remove(userId);
+            }
+        }
+
+        void revokeDocument(int documentKey) {
+            for (IntBitmapMap users : usersByPermission) {
+                users.removeValue(documentKey);
+            }
+        }
+
+        List<UUID> intersect(AclDictionary dictionary, String username, Permission permission, List<UUID> documentIds) {
+            int userId = dictionary.findUserId(username);
+            RoaringBitmap granted = usersByPermission[permission.ordinal()].get(userId);
+            if (granted == null) {
+                return List.of();
+            }
+
+            int[] documentKeys = new int[documentIds.size()];
+            RoaringBitmap requested = new RoaringBitmap();
+            for (int i = 0; i < documentKeys.length; i++) {
+                documentKeys[i] = dictionary.findDocumentId(documentIds.get(i));
+                if (documentKeys[i] != AclDictionary.MISSING) {
+                    requested.add(documentKeys[i]);
+                }
+            }
+
+            // removing each key as it is mapped back keeps the request order and drops repeated ids
+            RoaringBitmap accessibleKeys = RoaringBitmap.and(granted, requested);
+            List<UUID> accessible = new ArrayList<>(accessibleKeys.getCardinality());
+            for (int i = 0; i < documentKeys.length; i++) {
+                if (documentKeys[i] != AclDictionary.MISSING && accessibleKeys.checkedRemove(documentKeys[i])) {
+                    accessible.add(documentIds.get(i));
+                }
+            }
+            return accessible;
+        }
+
+        void runOptimize() {
+            for (IntBitmapMap users : usersByPermission) {
+                users.runOptimize();
+            }
+        }
+
+        long footprintBytes() {
+            long bytes = 0;
+            for (IntBitmapMap users : usersByPermission) {
+                bytes += users.footprintBytes();
+            }
+            return bytes;
+        }
+    }
+}
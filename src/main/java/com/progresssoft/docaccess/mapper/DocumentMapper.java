@@ -2,68 +2,153 @@ package com.progresssoft.docaccess.mapper;
 
 import com.progresssoft.docaccess.dto.request.AccessibleUsersRequest;
 import com.progresssoft.docaccess.dto.request.CreateDocumentRequest;
+import com.progresssoft.docaccess.dto.request.UploadDocumentRequest;
 import com.progresssoft.docaccess.dto.response.DocumentResponse;
+import com.progresssoft.docaccess.dto.response.DocumentSummaryResponse;
 import com.progresssoft.docaccess.entity.Document;
 import com.progresssoft.docaccess.entity.DocumentAccess;
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.repository.DocumentRepository.DocumentSummaryView;
+import com.progresssoft.docaccess.storage.ContentStore;
+import com.progresssoft.docaccess.storage.StoredContent;
+import com.progresssoft.docaccess.util.Digests;
+import com.progresssoft.docaccess.util.ETags;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
+@RequiredArgsConstructor
 public class DocumentMapper {
 
+    private final ContentStore contentStore;
+
     public DocumentResponse toResponse(Document document) {
+        return toResponse(document, document.getAccessList());
+    }
+
+    public DocumentResponse toResponse(Document document, List<DocumentAccess> accessList) {
         return new DocumentResponse(
                 document.getId(),
                 document.getName(),
-                document.getContent(),
+                contentOf(document),
                 document.getFileType(),
-                toAccessibleUsersList(document.getAccessList())
+                toAccessibleUsersList(accessList)
         );
     }
 
-    public Document toEntity(CreateDocumentRequest request, String createdBy) {
+    public Document toEntity(CreateDocumentRequest request, StoredContent content, String createdBy) {
+        return toEntity(request.name(), request.fileType(), request.accessibleUsers(), content, createdBy);
+    }
+
+    public Document toEntity(UploadDocumentRequest request, StoredContent content, String createdBy) {
+        return toEntity(request.name(), request.fileType(), request.accessibleUsers(), content, createdBy);
+    }
+
+    public DocumentSummaryResponse toSummary(Document document) {
+        return new DocumentSummaryResponse(
+                document.getId(),
+                document.getName(),
+                document.getFileType(),
+                document.getCreatedBy(),
+                document.getContentSize(),
+                document.getContentHash()
+        );
+    }
+
+    private Document toEntity(String name, String fileType, List<AccessibleUsersRequest> accessibleUsers,
+                              StoredContent content, String createdBy) {
         Document document = Document.builder()
-                .name(request.name())
-                .content(request.content())
-                .fileType(request.fileType())
+                .name(name)
+                .contentHash(content.hash())
+                .contentSize(content.size())
+                .contentEncoding(content.encoding())
+                .contentStoredSize(content.storedSize())
+                .fileType(fileType)
                 .createdBy(createdBy)
                 .accessList(new ArrayList<>())
                 .build();
 
-        document.setAccessList(toDocumentAccessList(request.accessibleUsers(), document));
+        document.setAccessList(toDocumentAccessList(accessibleUsers, document));
 
         return document;
     }
 
-    public List<DocumentResponse> toResponseList(List<Document> documents) {
+    public List<DocumentSummaryResponse> toSummaryList(List<DocumentSummaryView> documents) {
         return documents.stream()
-                .map(this::toResponse)
+                .map(document -> new DocumentSummaryResponse(
+                        document.getId(),
+                        document.getName(),
+                        document.getFileType(),
+                        document.getCreatedBy(),
+                        document.getSize(),
+                        document.getHash()
+                ))
                 .toList();
     }
 
-    private AccessibleUsersRequest toAccessibleUser(DocumentAccess access) {
-        return new AccessibleUsersRequest(
-                access.getUsername(),
-                access.getPermission()
-        );
+    /**
+     * Strong ETag of the {@link DocumentResponse} for this document: changes with the content hash
+     * or any grant, without reading the body.
+     */
+    public String toETag(Document document) {
+        StringBuilder version = new StringBuilder()
+                .append(document.getId()).append('|')
+                .append(document.getName()).append('|')
+                .append(document.getFileType()).append('|')
+                .append(document.getContentHash());
+        document.getAccessList().stream()
+                .sorted(Comparator.comparing(DocumentAccess::getUsername))
+                .forEach(access -> version.append('|').append(access.getUsername())
+                        .append('=').append(access.getPermissions()));
+        return ETags.strong(Digests.sha256Hex(version.toString()));
+    }
+
+    private String contentOf(Document document) {
+        return document.getContent() != null
+                ? document.getContent()
+                : contentStore.readString(new StoredContent(
+                        document.getContentHash(),
+                        document.getContentSize(),
+                        document.getContentEncoding(),
+                        document.getContentStoredSize()
+                ));
+    }
+
+    private Stream<AccessibleUsersRequest> toAccessibleUsers(DocumentAccess access) {
+        return Permission.fromMask(access.getPermissions()).stream()
+                .map(permission -> new AccessibleUsersRequest(access.getUsername(), permission));
     }
 
     private List<DocumentAccess> toDocumentAccessList(List<AccessibleUsersRequest> accessibleUsers, Document document) {
         if (accessibleUsers == null || accessibleUsers.isEmpty()) {
             return new ArrayList<>();
         }
-        return accessibleUsers.stream()
-                .map(accessibleUsersRequest -> toDocumentAccess(accessibleUsersRequest, document))
-                .toList();
+
+        Map<String, Integer> permissionsByUsername = new LinkedHashMap<>();
+        accessibleUsers.forEach(accessibleUser -> permissionsByUsername.merge(
+                accessibleUser.username(),
+                accessibleUser.permission().getMask(),
+                (left, right) -> left | right
+        ));
+
+        return permissionsByUsername.entrySet().stream()
+                .map(entry -> toDocumentAccess(entry.getKey(), entry.getValue(), document))
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
-    private DocumentAccess toDocumentAccess(AccessibleUsersRequest request, Document document) {
+    private DocumentAccess toDocumentAccess(String username, int permissions, Document document) {
         return DocumentAccess.builder()
-                .permission(request.permission())
-                .username(request.username())
+                .permissions(permissions)
+                .username(username)
                 .document(document)
                 .build();
     }
@@ -73,7 +158,7 @@ public class DocumentMapper {
             return Collections.emptyList();
         }
         return accessList.stream()
-                .map(this::toAccessibleUser)
+                .flatMap(this::toAccessibleUsers)
                 .toList();
     }
 
@@ -0,0 +1,50 @@
+package com.progresssoft.docaccess.pagination;
+
+import com.progresssoft.docaccess.exception.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque continuation token for keyset pages ordered by document id: a version byte followed by
+ * the last id of the previous page, base64url-encoded. Clients must treat it as a black box.
+ */
+public final class DocumentCursor {
+
+    /** Lower bound for the first page; no document id sorts below the nil UUID. */
+    public static final UUID START = new UUID(0L, 0L);
+
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + Long.BYTES + Long.BYTES;
+
+    private DocumentCursor() {
+    }
+
+    public static String encode(UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .put(VERSION)
+                .putLong(lastId.getMostSignificantBits())
+                .putLong(lastId.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static UUID decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+        if (bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, LENGTH - 1);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,17 @@
+package com.progresssoft.docaccess.pagination;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "docaccess.pagination")
+public record PaginationProperties(
+        @DefaultValue("50")
+        int defaultPageSize,
+        @DefaultValue("500")
+        int maxPageSize
+) {
+
+    public int resolve(Integer requested) {
+        return requested == null ? defaultPageSize : Math.clamp(requested, 1, maxPageSize);
+    }
+}
@@ -0,0 +1,22 @@
+package com.progresssoft.docaccess.readmodel;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/** Diffs (and with {@code docaccess.accessible-documents-check.repair} repairs) the read model and exits. */
+@Component
+@Profile("accessible-documents-check")
+@RequiredArgsConstructor
+public class AccessibleDocumentsCheckCommand implements ApplicationRunner {
+
+    private final AccessibleDocumentsChecker checker;
+    private final AccessibleDocumentsCheckProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        checker.check(properties.repair());
+    }
+}
@@ -0,0 +1,14 @@
+package com.progresssoft.docaccess.readmodel;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param repair write the differences found by the {@code accessible-documents-check} profile back
+ *               to the read model instead of only reporting them
+ */
+@ConfigurationProperties(prefix = "docaccess.accessible-documents-check")
+public record AccessibleDocumentsCheckProperties(
+        @DefaultValue("false")
+        boolean repair
+) {}
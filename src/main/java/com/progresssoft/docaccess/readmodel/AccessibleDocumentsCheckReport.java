@@ -0,0 +1,20 @@
+package com.progresssoft.docaccess.readmodel;
+
+/**
+ * @param expected rows the read model should hold, rebuilt from {@code document_accesses}
+ * @param missing expected rows absent from the read model (or present with other values)
+ * @param stale read model rows with no matching expected row
+ * @param repaired whether the differences were written back
+ */
+public record AccessibleDocumentsCheckReport(
+        long expected,
+        long missing,
+        long stale,
+        boolean repaired,
+        long elapsedMillis
+) {
+
+    public boolean consistent() {
+        return missing == 0 && stale == 0;
+    }
+}
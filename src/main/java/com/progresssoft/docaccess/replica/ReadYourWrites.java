@@ -0,0 +1,80 @@
+package com.progresssoft.docaccess.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessRevokedEvent;
+import com.progresssoft.docaccess.event.DocumentCreatedEvent;
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
+import com.progresssoft.docaccess.security.UserContextHolder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Users whose reads must stay on the primary for a while: whoever committed a write (registered on
+ * the transaction manager as an execution listener) and whoever was just granted or revoked access,
+ * including every grantee of a document revoked as a whole or deleted, so none of them reads a
+ * replica that has not replayed the change yet.
+ */
+@Component
+@ConditionalOnProperty(prefix = "docaccess.replicas", name = "enabled", havingValue = "true")
+public class ReadYourWrites implements TransactionExecutionListener {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(ReplicaProperties properties) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(properties.stickiness())
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public boolean isSticky(String username) {
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+
+    public void stick(String username) {
+        if (username != null) {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            stick(UserContextHolder.getCurrentUser());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentCreated(DocumentCreatedEvent event) {
+        event.permissionsByUsername().keySet().forEach(this::stick);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessGranted(DocumentAccessGrantedEvent event) {
+        stick(event.username());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessBatchGranted(DocumentAccessBatchGrantedEvent event) {
+        event.grants().stream()
+                .map(DocumentAccessBatchGrantedEvent.Grant::username)
+                .distinct()
+                .forEach(this::stick);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessRevoked(DocumentAccessRevokedEvent event) {
+        event.usernames().forEach(this::stick);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentDeleted(DocumentDeletedEvent event) {
+        event.grantees().forEach(this::stick);
+    }
+}
@@ -0,0 +1,39 @@
+package com.progresssoft.docaccess.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/** One replica pool and the outcome of its last lag check; replicas start out unavailable. */
+class Replica {
+
+    private final String name;
+    private final HikariDataSource dataSource;
+
+    private volatile boolean available;
+    private volatile double lagMillis = Double.NaN;
+
+    Replica(String name, HikariDataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    String name() {
+        return name;
+    }
+
+    HikariDataSource dataSource() {
+        return dataSource;
+    }
+
+    boolean isAvailable() {
+        return available;
+    }
+
+    double lagMillis() {
+        return lagMillis;
+    }
+
+    void update(boolean available, double lagMillis) {
+        this.lagMillis = lagMillis;
+        this.available = available;
+    }
+}
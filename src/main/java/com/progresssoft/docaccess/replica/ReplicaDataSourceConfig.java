@@ -0,0 +1,82 @@
+package com.progresssoft.docaccess.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Replaces the auto-configured data source when {@code docaccess.replicas.enabled} is set. Connections
+ * are handed out lazily: by the first statement the transaction manager has marked them read-only or
+ * not, and read-only ones come from {@link ReplicaRoutingDataSource}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "docaccess.replicas", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    // a dead replica should cost a read little before it fails; the monitor then routes around it
+    private static final long REPLICA_CONNECTION_TIMEOUT_MILLIS = 2_000;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties,
+                                              ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+        JdbcConnectionDetails details = connectionDetails.getIfAvailable();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("primary");
+        dataSource.setJdbcUrl(details != null ? details.getJdbcUrl() : properties.determineUrl());
+        dataSource.setUsername(details != null ? details.getUsername() : properties.determineUsername());
+        dataSource.setPassword(details != null ? details.getPassword() : properties.determinePassword());
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReplicaProperties properties,
+                                                             ReadYourWrites readYourWrites,
+                                                             MeterRegistry meterRegistry) {
+        List<Replica> replicas = IntStream.range(0, properties.urls().size())
+                .mapToObj(i -> new Replica("replica-" + i, replicaPool(
+                        "replica-" + i,
+                        properties.urls().get(i),
+                        properties,
+                        primaryDataSource
+                )))
+                .toList();
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readYourWrites, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    private static HikariDataSource replicaPool(String name,
+                                                String url,
+                                                ReplicaProperties properties,
+                                                HikariDataSource primary) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(properties.username() != null ? properties.username() : primary.getUsername());
+        dataSource.setPassword(properties.password() != null ? properties.password() : primary.getPassword());
+        dataSource.setMaximumPoolSize(properties.poolSize());
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionTimeout(REPLICA_CONNECTION_TIMEOUT_MILLIS);
+        return dataSource;
+    }
+}
@@ -0,0 +1,97 @@
+package com.progresssoft.docaccess.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Marks a replica available while it is a standby that has replayed everything the primary has
+ * written, or whose last replayed transaction is at most {@code max-lag} old. Unreachable replicas are
+ * marked unavailable until the next successful check.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "docaccess.replicas", name = "enabled", havingValue = "true")
+public class ReplicaLagMonitor {
+
+    // replay age alone overstates the lag of an idle primary, so it only counts while WAL is outstanding
+    private static final String LAG = """
+        SELECT pg_is_in_recovery() AS in_recovery,
+               pg_wal_lsn_diff(CAST(? AS pg_lsn), pg_last_wal_replay_lsn()) AS bytes_behind,
+               EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp()) * 1000 AS replay_age_millis
+        """;
+
+    private final JdbcTemplate primary;
+    private final ReplicaRoutingDataSource routing;
+    private final long maxLagMillis;
+
+    public ReplicaLagMonitor(HikariDataSource primaryDataSource,
+                             ReplicaRoutingDataSource routing,
+                             ReplicaProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.routing = routing;
+        this.maxLagMillis = properties.maxLag().toMillis();
+
+        for (Replica replica : routing.replicas()) {
+            Gauge.builder("docaccess.replica.lag", replica, Replica::lagMillis)
+                    .description("Replay lag behind the primary in milliseconds, 0 when caught up")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+            Gauge.builder("docaccess.replica.available", replica, r -> r.isAvailable() ? 1 : 0)
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${docaccess.replicas.lag-check-interval:PT1S}")
+    public void refresh() {
+        String primaryLsn;
+        try {
+            primaryLsn = primary.queryForObject("SELECT pg_current_wal_flush_lsn()::text", String.class);
+        } catch (DataAccessException ex) {
+            log.warn("Could not read the primary WAL position, replica availability unchanged: {}", ex.getMessage());
+            return;
+        }
+
+        for (Replica replica : routing.replicas()) {
+            check(replica, primaryLsn);
+        }
+    }
+
+    private void check(Replica replica, String primaryLsn) {
+        boolean available;
+        double lagMillis;
+        try {
+            Map<String, Object> row = new JdbcTemplate(replica.dataSource()).queryForMap(LAG, primaryLsn);
+            Number bytesBehind = (Number) row.get("bytes_behind");
+            Number replayAge = (Number) row.get("replay_age_millis");
+
+            if (bytesBehind != null && bytesBehind.doubleValue() <= 0) {
+                lagMillis = 0;
+            } else {
+                lagMillis = replayAge == null ? Double.POSITIVE_INFINITY : replayAge.doubleValue();
+            }
+            available = Boolean.TRUE.equals(row.get("in_recovery")) && lagMillis <= maxLagMillis;
+        } catch (DataAccessException ex) {
+            if (replica.isAvailable()) {
+                log.warn("Replica {} is unreachable, its reads go to the primary: {}", replica.name(), ex.getMessage());
+            }
+            replica.update(false, Double.NaN);
+            return;
+        }
+
+        if (available != replica.isAvailable()) {
+            log.info("Replica {} is now {} (lag {} ms)", replica.name(), available ? "available" : "unavailable", lagMillis);
+        }
+        replica.update(available, lagMillis);
+    }
+}
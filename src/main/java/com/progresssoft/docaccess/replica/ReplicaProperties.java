@@ -0,0 +1,34 @@
+package com.progresssoft.docaccess.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * @param urls JDBC urls of streaming replicas of the primary
+ * @param username replica login, the primary's when unset
+ * @param password replica password, the primary's when unset
+ * @param poolSize connections per replica
+ * @param maxLag replicas further behind the primary than this get no reads
+ * @param lagCheckInterval how often replica lag is measured
+ * @param stickiness how long a user's reads stay on the primary after a write by or for them
+ */
+@ConfigurationProperties(prefix = "docaccess.replicas")
+public record ReplicaProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        @DefaultValue
+        List<String> urls,
+        String username,
+        String password,
+        @DefaultValue("10")
+        int poolSize,
+        @DefaultValue("5s")
+        Duration maxLag,
+        @DefaultValue("1s")
+        Duration lagCheckInterval,
+        @DefaultValue("5s")
+        Duration stickiness
+) {}
@@ -0,0 +1,36 @@
+package com.progresssoft.docaccess.replica;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Marks the current transaction once {@link ReplicaRoutingDataSource} has handed it a replica
+ * connection. What such a transaction read may predate a committed revoke, so it must not be cached.
+ */
+public final class ReplicaReads {
+
+    private static final Object MARKER = ReplicaReads.class;
+
+    private ReplicaReads() {
+    }
+
+    /** Whether the current transaction reads from a replica. */
+    public static boolean isCurrentTransactionOnReplica() {
+        return TransactionSynchronizationManager.hasResource(MARKER);
+    }
+
+    // replica connections are only handed out to read-only transactions, which always synchronize
+    static void markCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || isCurrentTransactionOnReplica()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(MARKER, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(MARKER);
+            }
+        });
+    }
+}
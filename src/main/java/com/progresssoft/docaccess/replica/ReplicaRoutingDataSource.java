@@ -0,0 +1,94 @@
+package com.progresssoft.docaccess.replica;
+
+import com.progresssoft.docaccess.security.UserContextHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Source of read-only connections (see {@code LazyConnectionDataSourceProxy#setReadOnlyDataSource}).
+ * Reads made for a request user go round-robin to the replicas the lag monitor marked available.
+ * They fall back to the primary when none is, and while the user is sticky after a write. Reads
+ * without a user (scheduled rebuilds of the index and filters) always use the primary, because they
+ * must not miss a committed grant. A transaction served by a replica is marked through
+ * {@link ReplicaReads}, so the permissions it read are not cached.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter primaryReads;
+
+    ReplicaRoutingDataSource(DataSource primary,
+                             List<Replica> replicas,
+                             ReadYourWrites readYourWrites,
+                             MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.readYourWrites = readYourWrites;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.name(), replica.dataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.replicaReads = Counter.builder("docaccess.replica.reads")
+                .description("Read-only connections, by the data source that served them")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.primaryReads = Counter.builder("docaccess.replica.reads")
+                .description("Read-only connections, by the data source that served them")
+                .tag("target", PRIMARY)
+                .register(meterRegistry);
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = UserContextHolder.getCurrentUser();
+        Replica replica = username == null || readYourWrites.isSticky(username) ? null : nextAvailable();
+        if (replica == null) {
+            primaryReads.increment();
+            return PRIMARY;
+        }
+
+        replicaReads.increment();
+        ReplicaReads.markCurrentTransaction();
+        return replica.name();
+    }
+
+    private Replica nextAvailable() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource().close());
+    }
+}
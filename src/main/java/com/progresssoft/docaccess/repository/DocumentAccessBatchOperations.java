@@ -0,0 +1,20 @@
+package com.progresssoft.docaccess.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/** Set-based writes to {@code document_accesses} that would cost a round trip per row through JPA. */
+public interface DocumentAccessBatchOperations {
+
+    /**
+     * ORs each row's permissions into the existing grant, or inserts it, in a single statement.
+     * Rows must be unique per (documentId, username).
+     */
+    int upsertAll(Collection<GrantRow> rows);
+
+    record GrantRow(
+            UUID documentId,
+            String username,
+            int permissions
+    ) {}
+}
@@ -0,0 +1,52 @@
+package com.progresssoft.docaccess.repository;
+
+import com.progresssoft.docaccess.util.Uuids;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+class DocumentAccessBatchOperationsImpl implements DocumentAccessBatchOperations {
+
+    // one statement for the whole batch: the rows travel as four arrays and are unnested server side
+    private static final String UPSERT_ALL = """
+        INSERT INTO document_accesses (id, document_id, username, permissions)
+        SELECT g.id, g.document_id, g.username, g.permissions
+        FROM unnest(?::uuid[], ?::uuid[], ?::text[], ?::int[]) AS g(id, document_id, username, permissions)
+        ON CONFLICT (document_id, username)
+        DO UPDATE SET permissions = document_accesses.permissions | EXCLUDED.permissions
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int upsertAll(Collection<GrantRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Object[] ids = new Object[rows.size()];
+        Object[] documentIds = new Object[rows.size()];
+        Object[] usernames = new Object[rows.size()];
+        Object[] permissions = new Object[rows.size()];
+        int i = 0;
+        for (GrantRow row : rows) {
+            ids[i] = Uuids.timeOrdered();
+            documentIds[i] = row.documentId();
+            usernames[i] = row.username();
+            permissions[i] = row.permissions();
+            i++;
+        }
+
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_ALL);
+            statement.setArray(1, connection.createArrayOf("uuid", ids));
+            statement.setArray(2, connection.createArrayOf("uuid", documentIds));
+            statement.setArray(3, connection.createArrayOf("text", usernames));
+            statement.setArray(4, connection.createArrayOf("int4", permissions));
+            return statement;
+        });
+    }
+}
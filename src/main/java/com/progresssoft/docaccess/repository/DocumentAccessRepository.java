@@ -3,28 +3,109 @@ package com.progresssoft.docaccess.repository;
 import com.progresssoft.docaccess.entity.DocumentAccess;
 import com.progresssoft.docaccess.enums.Permission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface DocumentAccessRepository extends JpaRepository<DocumentAccess, UUID> {
+public interface DocumentAccessRepository extends JpaRepository<DocumentAccess, UUID>, DocumentAccessBatchOperations {
 
-    boolean existsByDocumentIdAndUsernameAndPermission(
-            UUID documentId,
-            String username,
-            Permission permission
+    @Query("""
+        SELECT a.permissions FROM DocumentAccess a
+        WHERE a.document.id = :documentId
+        AND a.username = :username
+    """)
+    Optional<Integer> findPermissionsByDocumentIdAndUsername(
+            @Param("documentId") UUID documentId,
+            @Param("username") String username
     );
 
-    Optional<DocumentAccess> findByDocumentIdAndUsernameAndPermission(
-            Long documentId,
-            String username,
-            Permission permission
+    @Query("SELECT a FROM DocumentAccess a WHERE a.document.id IN :documentIds")
+    List<DocumentAccess> findAllByDocumentIdIn(@Param("documentIds") Collection<UUID> documentIds);
+
+    // existence, the caller's right to grant and the upsert in one statement; concurrent identical
+    // grants meet in ON CONFLICT instead of racing on the unique constraint.
+    // permission is the right the caller needs (WRITE); found = false -> not found, found and not granted -> denied
+    @Query(value = """
+        WITH target AS (
+            SELECT d.id, COALESCE(a.permissions, 0) AS permissions
+            FROM documents d
+            LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = :caller
+            WHERE d.id = :documentId
+        ),
+        granted AS (
+            INSERT INTO document_accesses (id, document_id, username, permissions)
+            SELECT :id, t.id, :username, :permissions
+            FROM target t
+            WHERE :admin OR (t.permissions & :#{#permission.mask}) <> 0
+            ON CONFLICT (document_id, username)
+            DO UPDATE SET permissions = document_accesses.permissions | EXCLUDED.permissions
+            RETURNING 1
+        )
+        SELECT EXISTS (SELECT 1 FROM target) AS found,
+               EXISTS (SELECT 1 FROM granted) AS granted
+    """, nativeQuery = true)
+    GrantOutcome grantIfPermitted(
+            @Param("id") UUID id,
+            @Param("documentId") UUID documentId,
+            @Param("username") String username,
+            @Param("permissions") int permissions,
+            @Param("caller") String caller,
+            @Param("admin") boolean admin,
+            @Param("permission") Permission permission
     );
 
-    List<DocumentAccess> findByUsernameAndPermissionAndDocumentIdIn(
-            String username,
-            Permission permission,
-            List<Long> documentIds
+    // same shape as grantIfPermitted: the check and the DELETE in one statement, no entity is loaded.
+    // username = null revokes every grant on the document
+    @Query(value = """
+        WITH target AS (
+            SELECT d.id, COALESCE(a.permissions, 0) AS permissions
+            FROM documents d
+            LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = :caller
+            WHERE d.id = :documentId
+        ),
+        permitted AS (
+            SELECT t.id FROM target t
+            WHERE :admin OR (t.permissions & :#{#permission.mask}) <> 0
+        ),
+        revoked AS (
+            DELETE FROM document_accesses r
+            USING permitted p
+            WHERE r.document_id = p.id
+            AND (CAST(:username AS VARCHAR) IS NULL OR r.username = :username)
+            RETURNING r.username
+        )
+        SELECT EXISTS (SELECT 1 FROM target) AS found,
+               EXISTS (SELECT 1 FROM permitted) AS permitted,
+               (SELECT count(*) FROM revoked) AS revoked,
+               (SELECT array_agg(username) FROM revoked) AS revokedUsernames
+    """, nativeQuery = true)
+    RevokeOutcome revokeIfPermitted(
+            @Param("documentId") UUID documentId,
+            @Param("username") String username,
+            @Param("caller") String caller,
+            @Param("admin") boolean admin,
+            @Param("permission") Permission permission
     );
+
+    @Modifying
+    @Query(value = "DELETE FROM document_accesses WHERE username = :username", nativeQuery = true)
+    int deleteAllByUsername(@Param("username") String username);
+
+    interface GrantOutcome {
+        boolean isFound();
+        boolean isGranted();
+    }
+
+    interface RevokeOutcome {
+        boolean isFound();
+        boolean isPermitted();
+        long getRevoked();
+        /** Null when nothing was revoked. */
+        String[] getRevokedUsernames();
+    }
 }
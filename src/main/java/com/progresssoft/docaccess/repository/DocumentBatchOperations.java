@@ -0,0 +1,15 @@
+package com.progresssoft.docaccess.repository;
+
+import com.progresssoft.docaccess.entity.Document;
+
+import java.util.Collection;
+
+/** Set-based writes to {@code documents} for bulk loads, bypassing the persistence context. */
+public interface DocumentBatchOperations {
+
+    /**
+     * Inserts the documents as one JDBC batch. Ids must already be assigned; access lists are not
+     * written, see {@link DocumentAccessBatchOperations#upsertAll}.
+     */
+    int[] insertAll(Collection<Document> documents);
+}
@@ -0,0 +1,41 @@
+package com.progresssoft.docaccess.repository;
+
+import com.progresssoft.docaccess.entity.Document;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+class DocumentBatchOperationsImpl implements DocumentBatchOperations {
+
+    private static final String INSERT = """
+        INSERT INTO documents (id, name, file_type, created_by, content_hash, content_size,
+                               content_encoding, content_stored_size)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] insertAll(Collection<Document> documents) {
+        if (documents.isEmpty()) {
+            return new int[0];
+        }
+
+        List<Object[]> rows = documents.stream()
+                .map(document -> new Object[] {
+                        document.getId(),
+                        document.getName(),
+                        document.getFileType(),
+                        document.getCreatedBy(),
+                        document.getContentHash(),
+                        document.getContentSize(),
+                        document.getContentEncoding().name(),
+                        document.getContentStoredSize()
+                })
+                .toList();
+        return jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+}
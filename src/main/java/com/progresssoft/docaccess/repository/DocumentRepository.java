@@ -2,42 +2,172 @@ package com.progresssoft.docaccess.repository;
 
 import com.progresssoft.docaccess.entity.Document;
 import com.progresssoft.docaccess.enums.Permission;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface DocumentRepository extends JpaRepository<Document, UUID> {
+public interface DocumentRepository extends JpaRepository<Document, UUID>, DocumentBatchOperations {
 
-    @Query("""
-        SELECT DISTINCT d FROM Document d
-        JOIN d.accessList a
+    @Query(value = """
+        SELECT d.id, d.name, d.file_type AS "fileType", d.created_by AS "createdBy",
+               d.content_size AS size, d.content_hash AS hash
+        FROM documents d
+        WHERE d.id > :after
+        ORDER BY d.id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<DocumentSummaryView> findPageAfter(
+            @Param("after") UUID after,
+            @Param("limit") int limit
+    );
+
+    // reads the accessible_documents read model (changelog 012): one range of its primary key
+    @Query(value = """
+        SELECT l.document_id AS id, l.name, l.file_type AS "fileType", l.created_by AS "createdBy",
+               l.content_size AS size, l.content_hash AS hash
+        FROM accessible_documents l
+        WHERE l.username = :username
+        AND l.permission = :#{#permission.mask}
+        AND l.document_id > :after
+        ORDER BY l.document_id
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<DocumentSummaryView> findAccessiblePageAfter(
+            @Param("username") String username,
+            @Param("permission") Permission permission,
+            @Param("after") UUID after,
+            @Param("limit") int limit
+    );
+
+    // the fetch size makes the driver use a server-side cursor (needs an open transaction)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT * FROM documents", nativeQuery = true)
+    Stream<Document> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = """
+        SELECT d.* FROM document_accesses a
+        JOIN documents d ON d.id = a.document_id
         WHERE a.username = :username
-        AND a.permission = :permission
-    """)
-    List<Document> findAllAccessibleByUsername(
+        AND (a.permissions & :#{#permission.mask}) <> 0
+    """, nativeQuery = true)
+    Stream<Document> streamAccessible(
             @Param("username") String username,
             @Param("permission") Permission permission
     );
 
-    @Query("""
-        SELECT DISTINCT d.id FROM Document d
-        JOIN d.accessList a
-        WHERE d.id IN :ids
+    @Query(value = """
+        SELECT a.document_id FROM document_accesses a
+        WHERE a.document_id IN (:ids)
         AND a.username = :username
-        AND a.permission = :permission
-    """)
+        AND (a.permissions & :#{#permission.mask}) <> 0
+    """, nativeQuery = true)
     List<UUID> findAllByIdInAndAccessListUsernameAndAccessListPermission(
             @Param("ids") List<UUID> ids,
             @Param("username") String username,
             @Param("permission") Permission permission
     );
 
-    @Query("""
-    SELECT DISTINCT d FROM Document d
-    LEFT JOIN FETCH d.accessList
-""")
-    List<Document> findAllWithAccessList();
+    @EntityGraph(attributePaths = "accessList")
+    Optional<Document> findWithAccessListById(UUID id);
+
+    @Query(value = """
+        SELECT d.content_hash AS hash, d.content_size AS size, d.content AS content,
+               d.content_encoding AS encoding, d.content_stored_size AS "storedSize",
+               COALESCE(a.permissions, 0) AS permissions
+        FROM documents d
+        LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = :username
+        WHERE d.id = :id
+    """, nativeQuery = true)
+    Optional<DocumentContentView> findContentById(
+            @Param("id") UUID id,
+            @Param("username") String username
+    );
+
+    // documents missing from the result do not exist; permissions is 0 where the caller has no grant
+    @Query(value = """
+        SELECT d.id AS id, COALESCE(a.permissions, 0) AS permissions
+        FROM documents d
+        LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = :username
+        WHERE d.id IN (:ids)
+    """, nativeQuery = true)
+    List<DocumentPermissionView> findPermissionsByIdIn(
+            @Param("ids") Collection<UUID> ids,
+            @Param("username") String username
+    );
+
+    // found = false -> not found, found and not deleted -> denied
+    // grantees is read from the statement's snapshot, which still holds the grants the delete cascades to
+    @Query(value = """
+        WITH target AS (
+            SELECT d.id, COALESCE(a.permissions, 0) AS permissions
+            FROM documents d
+            LEFT JOIN document_accesses a ON a.document_id = d.id AND a.username = :username
+            WHERE d.id = :id
+        ),
+        deleted AS (
+            DELETE FROM documents d
+            USING target t
+            WHERE d.id = t.id
+            AND (:admin OR (t.permissions & :#{#permission.mask}) <> 0)
+            RETURNING d.id
+        )
+        SELECT EXISTS (SELECT 1 FROM target) AS found,
+               EXISTS (SELECT 1 FROM deleted) AS deleted,
+               (SELECT array_agg(a.username) FROM document_accesses a JOIN deleted x ON a.document_id = x.id) AS grantees
+    """, nativeQuery = true)
+    DeletionOutcome deleteIfPermitted(
+            @Param("id") UUID id,
+            @Param("username") String username,
+            @Param("admin") boolean admin,
+            @Param("permission") Permission permission
+    );
+
+    interface DocumentSummaryView {
+        UUID getId();
+        String getName();
+        String getFileType();
+        String getCreatedBy();
+        long getSize();
+        String getHash();
+    }
+
+    interface DocumentPermissionView {
+        UUID getId();
+        int getPermissions();
+    }
+
+    /** Content address plus the caller's permission mask on the document (0 without a grant). */
+    interface DocumentContentView {
+        String getHash();
+        long getSize();
+        String getEncoding();
+        long getStoredSize();
+        /** Body of a row not yet moved to the content store, otherwise null. */
+        String getContent();
+        int getPermissions();
+    }
+
+    interface DeletionOutcome {
+        boolean isFound();
+        boolean isDeleted();
+        /** Null when the document had no grants or was not deleted. */
+        String[] getGrantees();
+    }
 }
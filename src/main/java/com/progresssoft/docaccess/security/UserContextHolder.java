@@ -1,18 +1,65 @@
 package com.progresssoft.docaccess.security;
 
+import java.util.concurrent.Callable;
+
+/**
+ * The user a unit of work runs for. Bind it for a bounded extent with {@link #bind}, {@link #runAs} or
+ * {@link #callAs}. The previous binding is restored on exit, so nested work and pooled threads
+ * (platform or virtual) never see a stale user. Work handed to another executor carries the user
+ * through {@link #wrap} or {@link UserContextTaskDecorator}. This is the contract of
+ * {@code ScopedValue}, which is still a preview API on Java 21; moving to it only changes this class.
+ */
 public class UserContextHolder {
 
     private static final ThreadLocal<String> currentUser = new ThreadLocal<>();
 
-    public static void setCurrentUser(String username) {
+    public static String getCurrentUser() {
+        return currentUser.get();
+    }
+
+    /** Binds {@code username} until the returned binding is closed; use with try-with-resources. */
+    public static Binding bind(String username) {
+        Binding binding = new Binding(currentUser.get());
         currentUser.set(username);
+        return binding;
     }
 
-    public static String getCurrentUser() {
-        return currentUser.get();
+    public static void runAs(String username, Runnable work) {
+        try (Binding ignored = bind(username)) {
+            work.run();
+        }
+    }
+
+    public static <T> T callAs(String username, Callable<T> work) throws Exception {
+        try (Binding ignored = bind(username)) {
+            return work.call();
+        }
+    }
+
+    /** {@code work} bound to the user current at the time of this call, for running on another thread. */
+    public static Runnable wrap(Runnable work) {
+        String username = currentUser.get();
+        return () -> runAs(username, work);
+    }
+
+    /** Unscoped binding; prefer {@link #bind}. Must be paired with {@link #clear()}. */
+    public static void setCurrentUser(String username) {
+        currentUser.set(username);
     }
 
     public static void clear() {
         currentUser.remove();
     }
-}
\ No newline at end of file
+
+    public record Binding(String previous) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                currentUser.remove();
+            } else {
+                currentUser.set(previous);
+            }
+        }
+    }
+}
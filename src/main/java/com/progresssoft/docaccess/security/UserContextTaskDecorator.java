@@ -0,0 +1,17 @@
+package com.progresssoft.docaccess.security;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs tasks submitted to the auto-configured application task executor (thread pool, or one
+ * virtual thread per task with {@code spring.threads.virtual.enabled}) as the submitting user.
+ */
+@Component
+public class UserContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return UserContextHolder.wrap(runnable);
+    }
+}
@@ -28,11 +28,8 @@ public class UserHeaderFilter extends OncePerRequestFilter {
             return;
         }
 
-        try {
-            UserContextHolder.setCurrentUser(username);
+        try (UserContextHolder.Binding ignored = UserContextHolder.bind(username)) {
             filterChain.doFilter(request, response);
-        } finally {
-            UserContextHolder.clear();
         }
 
     }
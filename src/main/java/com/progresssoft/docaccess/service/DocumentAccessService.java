@@ -1,9 +1,17 @@
 package com.progresssoft.docaccess.service;
 
+import com.progresssoft.docaccess.dto.request.BatchGrantRequest;
 import com.progresssoft.docaccess.dto.request.GrantPermissionRequest;
+import com.progresssoft.docaccess.dto.response.BatchGrantResponse;
+import com.progresssoft.docaccess.dto.response.RevokeResponse;
 
 import java.util.UUID;
 
 public interface DocumentAccessService {
     void grantPermission(UUID documentId, GrantPermissionRequest request);
+    BatchGrantResponse grantPermissions(BatchGrantRequest request);
+    RevokeResponse revokePermission(UUID documentId, String username);
+    RevokeResponse revokeDocumentPermissions(UUID documentId);
+    /** Offboarding: drops every grant the user holds, across all documents (admin only). */
+    RevokeResponse revokeUserPermissions(String username);
 }
@@ -0,0 +1,8 @@
+package com.progresssoft.docaccess.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface DocumentExportService {
+    void exportAccessibleDocuments(OutputStream output) throws IOException;
+}
@@ -0,0 +1,14 @@
+package com.progresssoft.docaccess.service;
+
+import com.progresssoft.docaccess.dto.response.ImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface DocumentImportService {
+    /**
+     * Reads one {@code CreateDocumentRequest} per line and commits them in chunks. Invalid lines are
+     * reported and skipped; chunks already committed stay when a later one fails.
+     */
+    ImportReport importDocuments(InputStream ndjson) throws IOException;
+}
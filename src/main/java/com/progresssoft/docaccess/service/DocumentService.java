@@ -3,15 +3,25 @@ package com.progresssoft.docaccess.service;
 import com.progresssoft.docaccess.dto.request.BatchAccessRequest;
 import com.progresssoft.docaccess.dto.response.BatchAccessResponse;
 import com.progresssoft.docaccess.dto.request.CreateDocumentRequest;
+import com.progresssoft.docaccess.dto.request.UploadDocumentRequest;
+import com.progresssoft.docaccess.dto.response.DocumentPageResponse;
 import com.progresssoft.docaccess.dto.response.DocumentResponse;
+import com.progresssoft.docaccess.dto.response.DocumentSummaryResponse;
+import com.progresssoft.docaccess.dto.response.VersionedResponse;
+import com.progresssoft.docaccess.storage.StoredContent;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.UUID;
 
 public interface DocumentService {
     DocumentResponse createDocument(CreateDocumentRequest request);
-    List<DocumentResponse> getAllAccessibleDocuments();
-    DocumentResponse getDocumentById(UUID id);
+    /** Streams {@code content} into the content store; the body is never held in memory as a whole. */
+    DocumentSummaryResponse uploadDocument(UploadDocumentRequest request, InputStream content) throws IOException;
+    DocumentPageResponse getAccessibleDocuments(String cursor, Integer size);
+    /** The document, or {@link VersionedResponse#notModified} when {@code ifNoneMatch} names its current ETag. */
+    VersionedResponse<DocumentResponse> getDocumentById(UUID id, String ifNoneMatch);
+    StoredContent getDocumentContent(UUID id);
     void deleteDocument(UUID id);
     BatchAccessResponse batchAccessCheck(BatchAccessRequest request);
 }
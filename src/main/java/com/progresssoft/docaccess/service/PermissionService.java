@@ -6,6 +6,19 @@ import java.util.UUID;
 
 public interface PermissionService {
     public boolean isAdmin();
-    public boolean hasPermission(UUID documentId, Permission permission);
-    public boolean canGrant(UUID documentId);
+
+    /**
+     * True when the negative lookup filter or a cached decision already rule the permission out, so
+     * the statement that would check it (and do the work) can be skipped. Never true for admin.
+     */
+    public boolean isKnownDenied(UUID documentId, Permission permission);
+
+    /** Taken before a statement whose result includes the caller's permissions; see {@link #remember}. */
+    public long beginLookup();
+
+    /**
+     * Caches the caller's permissions read since {@code lookup}, unless a grant or revoke committed in
+     * between or they were read from a replica.
+     */
+    public void remember(UUID documentId, int permissions, long lookup);
 }
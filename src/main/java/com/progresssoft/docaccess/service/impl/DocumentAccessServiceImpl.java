@@ -1,19 +1,40 @@
 package com.progresssoft.docaccess.service.impl;
 
+import com.progresssoft.docaccess.dto.request.BatchGrantItem;
+import com.progresssoft.docaccess.dto.request.BatchGrantRequest;
 import com.progresssoft.docaccess.dto.request.GrantPermissionRequest;
-import com.progresssoft.docaccess.entity.Document;
-import com.progresssoft.docaccess.entity.DocumentAccess;
+import com.progresssoft.docaccess.dto.response.BatchGrantResponse;
+import com.progresssoft.docaccess.dto.response.BatchGrantResult;
+import com.progresssoft.docaccess.dto.response.RevokeResponse;
+import com.progresssoft.docaccess.enums.GrantStatus;
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessRevokedEvent;
 import com.progresssoft.docaccess.exception.AccessDeniedException;
 import com.progresssoft.docaccess.exception.DocumentNotFoundException;
+import com.progresssoft.docaccess.repository.DocumentAccessBatchOperations.GrantRow;
 import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository.GrantOutcome;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository.RevokeOutcome;
 import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository.DocumentPermissionView;
+import com.progresssoft.docaccess.security.UserContextHolder;
 import com.progresssoft.docaccess.service.DocumentAccessService;
 import com.progresssoft.docaccess.service.PermissionService;
+import com.progresssoft.docaccess.util.Uuids;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,33 +44,149 @@ public class DocumentAccessServiceImpl implements DocumentAccessService {
     private final DocumentRepository documentRepository;
     private final DocumentAccessRepository documentAccessRepository;
     private final PermissionService permissionService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public void grantPermission(UUID documentId, GrantPermissionRequest request) {
-        Document document = documentRepository.findById(documentId)
-                .orElseThrow(() -> new DocumentNotFoundException(
-                        "Document not found with id: " + documentId
-                ));
+        if (permissionService.isKnownDenied(documentId, Permission.WRITE)) {
+            throw deniedOrNotFound(documentId, "You don't have permission to grant access");
+        }
+
+        GrantOutcome outcome = documentAccessRepository.grantIfPermitted(
+                Uuids.timeOrdered(),
+                documentId,
+                request.username(),
+                request.permission().getMask(),
+                UserContextHolder.getCurrentUser(),
+                permissionService.isAdmin(),
+                Permission.WRITE
+        );
 
-        if (!permissionService.canGrant(documentId)) {
+        if (!outcome.isFound()) {
+            throw new DocumentNotFoundException("Document not found with id: " + documentId);
+        }
+        if (!outcome.isGranted()) {
             throw new AccessDeniedException("You don't have permission to grant access");
         }
 
-        boolean alreadyExists = documentAccessRepository
-                .existsByDocumentIdAndUsernameAndPermission(
-                        documentId,
-                        request.username(),
-                        request.permission()
-                );
+        eventPublisher.publishEvent(new DocumentAccessGrantedEvent(
+                documentId,
+                request.username(),
+                request.permission()
+        ));
+    }
+
+    @Override
+    public BatchGrantResponse grantPermissions(BatchGrantRequest request) {
+        Set<UUID> documentIds = request.grants().stream()
+                .map(BatchGrantItem::documentId)
+                .collect(Collectors.toSet());
+
+        // one query answers both "does it exist" and "may the caller grant on it" for every document
+        Map<UUID, Integer> callerPermissions = documentRepository
+                .findPermissionsByIdIn(documentIds, UserContextHolder.getCurrentUser())
+                .stream()
+                .collect(Collectors.toMap(DocumentPermissionView::getId, DocumentPermissionView::getPermissions));
+        boolean admin = permissionService.isAdmin();
+
+        List<BatchGrantResult> results = new ArrayList<>(request.grants().size());
+        Map<AccessKey, Integer> rows = new LinkedHashMap<>();
+        for (BatchGrantItem grant : request.grants()) {
+            Integer permissions = callerPermissions.get(grant.documentId());
+            GrantStatus status;
+            if (permissions == null) {
+                status = GrantStatus.NOT_FOUND;
+            } else if (admin || Permission.WRITE.isGrantedBy(permissions)) {
+                status = GrantStatus.GRANTED;
+                rows.merge(new AccessKey(grant.documentId(), grant.username()),
+                        grant.permission().getMask(), (left, right) -> left | right);
+            } else {
+                status = GrantStatus.FORBIDDEN;
+            }
+            results.add(new BatchGrantResult(grant.documentId(), grant.username(), grant.permission(), status));
+        }
+
+        documentAccessRepository.upsertAll(rows.entrySet().stream()
+                .map(row -> new GrantRow(row.getKey().documentId(), row.getKey().username(), row.getValue()))
+                .toList());
 
-        if (alreadyExists) return;
+        if (!rows.isEmpty()) {
+            eventPublisher.publishEvent(new DocumentAccessBatchGrantedEvent(rows.entrySet().stream()
+                    .map(row -> new DocumentAccessBatchGrantedEvent.Grant(
+                            row.getKey().documentId(),
+                            row.getKey().username(),
+                            row.getValue()
+                    ))
+                    .toList()));
+        }
 
-        DocumentAccess access = DocumentAccess.builder()
-                .username(request.username())
-                .permission(request.permission())
-                .document(document)
-                .build();
+        return new BatchGrantResponse(
+                (int) results.stream().filter(result -> result.status() == GrantStatus.GRANTED).count(),
+                results
+        );
+    }
 
-        documentAccessRepository.save(access);
+    @Override
+    public RevokeResponse revokePermission(UUID documentId, String username) {
+        return revoke(documentId, username);
     }
-}
\ No newline at end of file
+
+    @Override
+    public RevokeResponse revokeDocumentPermissions(UUID documentId) {
+        return revoke(documentId, null);
+    }
+
+    @Override
+    public RevokeResponse revokeUserPermissions(String username) {
+        if (!permissionService.isAdmin()) {
+            throw new AccessDeniedException("Only admin can revoke all grants of a user");
+        }
+
+        int revoked = documentAccessRepository.deleteAllByUsername(username);
+        if (revoked > 0) {
+            eventPublisher.publishEvent(new DocumentAccessRevokedEvent(null, username));
+        }
+        return new RevokeResponse(revoked);
+    }
+
+    // revoking needs the same right as granting
+    private RevokeResponse revoke(UUID documentId, String username) {
+        if (permissionService.isKnownDenied(documentId, Permission.WRITE)) {
+            throw deniedOrNotFound(documentId, "You don't have permission to revoke access");
+        }
+
+        RevokeOutcome outcome = documentAccessRepository.revokeIfPermitted(
+                documentId,
+                username,
+                UserContextHolder.getCurrentUser(),
+                permissionService.isAdmin(),
+                Permission.WRITE
+        );
+
+        if (!outcome.isFound()) {
+            throw new DocumentNotFoundException("Document not found with id: " + documentId);
+        }
+        if (!outcome.isPermitted()) {
+            throw new AccessDeniedException("You don't have permission to revoke access");
+        }
+
+        if (outcome.getRevoked() > 0) {
+            eventPublisher.publishEvent(new DocumentAccessRevokedEvent(
+                    documentId,
+                    username,
+                    List.of(outcome.getRevokedUsernames())
+            ));
+        }
+        return new RevokeResponse(outcome.getRevoked());
+    }
+
+    // the statement was skipped on a known denial, so only existence is left to tell 404 from 403
+    private RuntimeException deniedOrNotFound(UUID documentId, String message) {
+        if (!documentRepository.existsById(documentId)) {
+            return new DocumentNotFoundException("Document not found with id: " + documentId);
+        }
+        return new AccessDeniedException(message);
+    }
+
+    private record AccessKey(UUID documentId, String username) {}
+}
@@ -0,0 +1,87 @@
+package com.progresssoft.docaccess.service.impl;
+
+import com.progresssoft.docaccess.entity.Document;
+import com.progresssoft.docaccess.entity.DocumentAccess;
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.mapper.DocumentMapper;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.security.UserContextHolder;
+import com.progresssoft.docaccess.service.DocumentExportService;
+import com.progresssoft.docaccess.service.PermissionService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes one JSON document per line while the rows are still streaming from the database.
+ * Documents are handled in chunks: the access lists of a chunk are loaded with one query, the
+ * chunk is written and flushed, and the persistence context is cleared before the next one.
+ */
+@Service
+@RequiredArgsConstructor
+public class DocumentExportServiceImpl implements DocumentExportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private final DocumentRepository documentRepository;
+    private final DocumentAccessRepository documentAccessRepository;
+    private final PermissionService permissionService;
+    private final DocumentMapper documentMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAccessibleDocuments(OutputStream output) throws IOException {
+        try (Stream<Document> documents = permissionService.isAdmin()
+                ? documentRepository.streamAll()
+                : documentRepository.streamAccessible(UserContextHolder.getCurrentUser(), Permission.READ)) {
+
+            List<Document> chunk = new ArrayList<>(CHUNK_SIZE);
+            Iterator<Document> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    writeChunk(chunk, output);
+                }
+            }
+            writeChunk(chunk, output);
+        }
+    }
+
+    private void writeChunk(List<Document> chunk, OutputStream output) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<UUID> documentIds = chunk.stream().map(Document::getId).toList();
+        Map<UUID, List<DocumentAccess>> accessByDocument = documentAccessRepository
+                .findAllByDocumentIdIn(documentIds).stream()
+                .collect(Collectors.groupingBy(access -> access.getDocument().getId()));
+
+        for (Document document : chunk) {
+            output.write(objectMapper.writeValueAsBytes(documentMapper.toResponse(
+                    document,
+                    accessByDocument.getOrDefault(document.getId(), List.of())
+            )));
+            output.write('\n');
+        }
+        output.flush();
+
+        chunk.clear();
+        entityManager.clear();
+    }
+}
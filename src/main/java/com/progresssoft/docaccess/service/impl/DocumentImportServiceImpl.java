@@ -0,0 +1,227 @@
+package com.progresssoft.docaccess.service.impl;
+
+import com.progresssoft.docaccess.bulk.ImportProperties;
+import com.progresssoft.docaccess.dto.request.AccessibleUsersRequest;
+import com.progresssoft.docaccess.dto.request.CreateDocumentRequest;
+import com.progresssoft.docaccess.dto.response.ImportLineError;
+import com.progresssoft.docaccess.dto.response.ImportReport;
+import com.progresssoft.docaccess.entity.Document;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.exception.AccessDeniedException;
+import com.progresssoft.docaccess.mapper.DocumentMapper;
+import com.progresssoft.docaccess.repository.DocumentAccessBatchOperations.GrantRow;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.security.UserContextHolder;
+import com.progresssoft.docaccess.service.DocumentImportService;
+import com.progresssoft.docaccess.service.PermissionService;
+import com.progresssoft.docaccess.storage.ContentCompressionProperties;
+import com.progresssoft.docaccess.storage.ContentStore;
+import com.progresssoft.docaccess.storage.StoredContent;
+import com.progresssoft.docaccess.util.Uuids;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the stream a line at a time and writes documents in chunks of
+ * {@link ImportProperties#chunkSize()}: one JDBC batch for the documents and one statement for their
+ * grants, committed together. Bodies go to the content store as each line is read, so memory holds
+ * one chunk of metadata, never the whole file.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentImportServiceImpl implements DocumentImportService {
+
+    private final DocumentRepository documentRepository;
+    private final DocumentAccessRepository documentAccessRepository;
+    private final PermissionService permissionService;
+    private final DocumentMapper documentMapper;
+    private final ContentStore contentStore;
+    private final ContentCompressionProperties compressionProperties;
+    private final ImportProperties importProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public ImportReport importDocuments(InputStream ndjson) throws IOException {
+        if (!permissionService.isAdmin()) {
+            throw new AccessDeniedException("Only admin can import documents");
+        }
+
+        String createdBy = UserContextHolder.getCurrentUser();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Progress progress = new Progress(importProperties.maxReportedErrors());
+        List<PendingDocument> chunk = new ArrayList<>(importProperties.chunkSize());
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                chunk.add(new PendingDocument(lineNumber, toDocument(line, createdBy)));
+            } catch (InvalidLineException e) {
+                progress.fail(lineNumber, e.getMessage());
+            }
+
+            if (chunk.size() == importProperties.chunkSize()) {
+                writeChunk(chunk, transaction, progress);
+            }
+        }
+        writeChunk(chunk, transaction, progress);
+
+        ImportReport report = progress.report();
+        log.info("Import finished: {} imported, {} failed, {} grants in {} ms ({} documents/s)",
+                report.imported(), report.failed(), report.grants(), report.elapsedMillis(),
+                Math.round(report.documentsPerSecond()));
+        return report;
+    }
+
+    private Document toDocument(String line, String createdBy) {
+        CreateDocumentRequest request;
+        try {
+            request = objectMapper.readValue(line, CreateDocumentRequest.class);
+        } catch (JacksonException e) {
+            throw new InvalidLineException("malformed JSON: " + e.getOriginalMessage());
+        }
+
+        validate(request);
+        if (request.accessibleUsers() != null) {
+            for (AccessibleUsersRequest accessibleUser : request.accessibleUsers()) {
+                if (accessibleUser == null) {
+                    throw new InvalidLineException("accessibleUsers must not contain null");
+                }
+                validate(accessibleUser);
+            }
+        }
+
+        StoredContent content = contentStore.put(
+                request.content(),
+                compressionProperties.policyFor(request.fileType())
+        );
+        Document document = documentMapper.toEntity(request, content, createdBy);
+        document.setId(Uuids.timeOrdered());
+        return document;
+    }
+
+    private void validate(Object value) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(value);
+        if (!violations.isEmpty()) {
+            throw new InvalidLineException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private void writeChunk(List<PendingDocument> chunk, TransactionTemplate transaction, Progress progress) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        List<Document> documents = chunk.stream().map(PendingDocument::document).toList();
+        List<GrantRow> grants = documents.stream()
+                .flatMap(document -> document.getAccessList().stream())
+                .map(access -> new GrantRow(access.getDocument().getId(), access.getUsername(), access.getPermissions()))
+                .toList();
+
+        try {
+            transaction.executeWithoutResult(status -> {
+                documentRepository.insertAll(documents);
+                documentAccessRepository.upsertAll(grants);
+                // published inside the transaction so the caches and the index apply them on commit, as one
+                // event so the index resolves the chunk's new dictionary ids with one query, not one per document
+                if (!grants.isEmpty()) {
+                    eventPublisher.publishEvent(new DocumentAccessBatchGrantedEvent(grants.stream()
+                            .map(grant -> new DocumentAccessBatchGrantedEvent.Grant(
+                                    grant.documentId(),
+                                    grant.username(),
+                                    grant.permissions()
+                            ))
+                            .toList()));
+                }
+            });
+            progress.imported(documents.size(), grants.size());
+        } catch (DataAccessException e) {
+            log.warn("Import chunk of {} documents rolled back", chunk.size(), e);
+            chunk.forEach(pending -> progress.fail(pending.line(), "chunk rolled back: " + e.getMostSpecificCause().getMessage()));
+        }
+
+        log.info("Import progress: {} imported, {} failed ({} documents/s)",
+                progress.imported, progress.failed, Math.round(progress.documentsPerSecond()));
+        chunk.clear();
+    }
+
+    private record PendingDocument(long line, Document document) {}
+
+    private static final class InvalidLineException extends RuntimeException {
+        InvalidLineException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Progress {
+
+        private final long startedAt = System.nanoTime();
+        private final int maxReportedErrors;
+        private final List<ImportLineError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+        private long grants;
+
+        Progress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void imported(int documents, int grantRows) {
+            imported += documents;
+            grants += grantRows;
+        }
+
+        void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportLineError(line, message));
+            }
+        }
+
+        long elapsedMillis() {
+            return (System.nanoTime() - startedAt) / 1_000_000;
+        }
+
+        double documentsPerSecond() {
+            long elapsedNanos = Math.max(1, System.nanoTime() - startedAt);
+            return imported * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        ImportReport report() {
+            return new ImportReport(imported, failed, grants, elapsedMillis(), documentsPerSecond(), List.copyOf(errors));
+        }
+    }
+}
@@ -3,22 +3,45 @@ package com.progresssoft.docaccess.service.impl;
 import com.progresssoft.docaccess.dto.request.BatchAccessRequest;
 import com.progresssoft.docaccess.dto.response.BatchAccessResponse;
 import com.progresssoft.docaccess.dto.request.CreateDocumentRequest;
+import com.progresssoft.docaccess.dto.request.UploadDocumentRequest;
+import com.progresssoft.docaccess.dto.response.DocumentPageResponse;
 import com.progresssoft.docaccess.dto.response.DocumentResponse;
+import com.progresssoft.docaccess.dto.response.DocumentSummaryResponse;
+import com.progresssoft.docaccess.dto.response.VersionedResponse;
 import com.progresssoft.docaccess.entity.Document;
+import com.progresssoft.docaccess.entity.DocumentAccess;
 import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.DocumentCreatedEvent;
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
 import com.progresssoft.docaccess.exception.AccessDeniedException;
 import com.progresssoft.docaccess.exception.DocumentNotFoundException;
+import com.progresssoft.docaccess.exception.EmptyContentException;
+import com.progresssoft.docaccess.index.DocumentAccessIndex;
 import com.progresssoft.docaccess.mapper.DocumentMapper;
+import com.progresssoft.docaccess.pagination.DocumentCursor;
+import com.progresssoft.docaccess.pagination.PaginationProperties;
 import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository.DocumentContentView;
+import com.progresssoft.docaccess.repository.DocumentRepository.DocumentSummaryView;
 import com.progresssoft.docaccess.security.UserContextHolder;
 import com.progresssoft.docaccess.service.DocumentService;
 import com.progresssoft.docaccess.service.PermissionService;
+import com.progresssoft.docaccess.storage.ContentCompressionProperties;
+import com.progresssoft.docaccess.storage.ContentEncoding;
+import com.progresssoft.docaccess.storage.ContentStore;
+import com.progresssoft.docaccess.storage.StoredContent;
+import com.progresssoft.docaccess.util.ETags;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,57 +51,182 @@ public class DocumentServiceImpl implements DocumentService {
     private final DocumentRepository documentRepository;
     private final PermissionService permissionService;
     private final DocumentMapper documentMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DocumentAccessIndex documentAccessIndex;
+    private final PaginationProperties paginationProperties;
+    private final ContentStore contentStore;
+    private final ContentCompressionProperties compressionProperties;
 
     public DocumentResponse createDocument(CreateDocumentRequest request) {
         if (!permissionService.isAdmin()) {
             throw new AccessDeniedException("Only admin can create documents");
         }
 
+        // a rolled-back create leaves an unreferenced blob behind, never a row without its body
+        StoredContent content = contentStore.put(
+                request.content(),
+                compressionProperties.policyFor(request.fileType())
+        );
         Document document = documentMapper.toEntity(
                 request,
+                content,
                 UserContextHolder.getCurrentUser()
         );
 
-        return documentMapper.toResponse(documentRepository.save(document));
+        return documentMapper.toResponse(save(document));
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<DocumentResponse> getAllAccessibleDocuments() {
-        if (permissionService.isAdmin()) {
-            return documentMapper.toResponseList(documentRepository.findAll());
+    public DocumentSummaryResponse uploadDocument(UploadDocumentRequest request, InputStream content)
+            throws IOException {
+        // checked before the body is read, so a denied upload is never written anywhere
+        if (!permissionService.isAdmin()) {
+            throw new AccessDeniedException("Only admin can create documents");
+        }
+
+        // peeked before anything is stored, so a rejected empty upload leaves no blob behind
+        PushbackInputStream body = new PushbackInputStream(content);
+        int first = body.read();
+        if (first == -1) {
+            throw new EmptyContentException("content is required");
         }
+        body.unread(first);
+
+        StoredContent stored = contentStore.put(body, compressionProperties.policyFor(request.fileType()));
+
+        Document document = documentMapper.toEntity(
+                request,
+                stored,
+                UserContextHolder.getCurrentUser()
+        );
+
+        return documentMapper.toSummary(save(document));
+    }
 
-        return documentMapper.toResponseList(
-                documentRepository.findAllAccessibleByUsername(
+    private Document save(Document document) {
+        Document saved = documentRepository.save(document);
+        eventPublisher.publishEvent(new DocumentCreatedEvent(
+                saved.getId(),
+                saved.getAccessList().stream()
+                        .collect(Collectors.toMap(DocumentAccess::getUsername, DocumentAccess::getPermissions))
+        ));
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DocumentPageResponse getAccessibleDocuments(String cursor, Integer size) {
+        UUID after = DocumentCursor.decode(cursor);
+        int pageSize = paginationProperties.resolve(size);
+
+        // one extra row tells whether there is a next page
+        List<DocumentSummaryView> documents = permissionService.isAdmin()
+                ? documentRepository.findPageAfter(after, pageSize + 1)
+                : documentRepository.findAccessiblePageAfter(
                         UserContextHolder.getCurrentUser(),
-                        Permission.READ
-                )
+                        Permission.READ,
+                        after,
+                        pageSize + 1
+                );
+
+        if (documents.size() <= pageSize) {
+            return new DocumentPageResponse(documentMapper.toSummaryList(documents), null);
+        }
+
+        List<DocumentSummaryView> page = documents.subList(0, pageSize);
+        return new DocumentPageResponse(
+                documentMapper.toSummaryList(page),
+                DocumentCursor.encode(page.getLast().getId())
         );
     }
 
     @Override
     @Transactional(readOnly = true)
-    public DocumentResponse getDocumentById(UUID id) {
-        Document document = findDocumentOrThrow(id);
+    public VersionedResponse<DocumentResponse> getDocumentById(UUID id, String ifNoneMatch) {
+        if (permissionService.isKnownDenied(id, Permission.READ)) {
+            throw deniedOrNotFound(id, "You don't have READ permission on this document");
+        }
+
+        // the access list is fetched for the response anyway, so it also answers the permission check
+        long lookup = permissionService.beginLookup();
+        Document document = documentRepository.findWithAccessListById(id)
+                .orElseThrow(() -> new DocumentNotFoundException(
+                        "Document not found with id: " + id
+                ));
+
+        if (!permissionService.isAdmin()) {
+            int permissions = permissionsOf(document);
+            permissionService.remember(id, permissions, lookup);
+            if (!Permission.READ.isGrantedBy(permissions)) {
+                throw new AccessDeniedException("You don't have READ permission on this document");
+            }
+        }
+
+        // decided from the row and its access list, before the body is read from the content store
+        String etag = documentMapper.toETag(document);
+        if (ETags.matchesAny(ifNoneMatch, etag)) {
+            return VersionedResponse.notModified(etag);
+        }
+        return new VersionedResponse<>(etag, documentMapper.toResponse(document));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StoredContent getDocumentContent(UUID id) {
+        if (permissionService.isKnownDenied(id, Permission.READ)) {
+            throw deniedOrNotFound(id, "You don't have READ permission on this document");
+        }
 
-        if (!permissionService.hasPermission(id, Permission.READ)) {
-            throw new AccessDeniedException("You don't have READ permission on this document");
+        long lookup = permissionService.beginLookup();
+        DocumentContentView document = documentRepository.findContentById(id, UserContextHolder.getCurrentUser())
+                .orElseThrow(() -> new DocumentNotFoundException(
+                        "Document not found with id: " + id
+                ));
+
+        if (!permissionService.isAdmin()) {
+            permissionService.remember(id, document.getPermissions(), lookup);
+            if (!Permission.READ.isGrantedBy(document.getPermissions())) {
+                throw new AccessDeniedException("You don't have READ permission on this document");
+            }
         }
 
-        return documentMapper.toResponse(document);
+        StoredContent content = new StoredContent(
+                document.getHash(),
+                document.getSize(),
+                ContentEncoding.valueOf(document.getEncoding()),
+                document.getStoredSize()
+        );
+        if (document.getContent() != null && !contentStore.exists(content)) {
+            return contentStore.put(document.getContent());
+        }
+        return content;
     }
 
 
     @Override
     public void deleteDocument(UUID id) {
-        findDocumentOrThrow(id);
+        if (permissionService.isKnownDenied(id, Permission.DELETE)) {
+            throw deniedOrNotFound(id, "You don't have DELETE permission on this document");
+        }
 
-        if (!permissionService.hasPermission(id, Permission.DELETE)) {
+        DocumentRepository.DeletionOutcome outcome = documentRepository.deleteIfPermitted(
+                id,
+                UserContextHolder.getCurrentUser(),
+                permissionService.isAdmin(),
+                Permission.DELETE
+        );
+
+        if (!outcome.isFound()) {
+            throw new DocumentNotFoundException("Document not found with id: " + id);
+        }
+        if (!outcome.isDeleted()) {
             throw new AccessDeniedException("You don't have DELETE permission on this document");
         }
 
-        documentRepository.deleteById(id);
+        eventPublisher.publishEvent(new DocumentDeletedEvent(
+                id,
+                outcome.getGrantees() == null ? List.of() : List.of(outcome.getGrantees())
+        ));
     }
 
     @Override
@@ -88,19 +236,32 @@ public class DocumentServiceImpl implements DocumentService {
             return new BatchAccessResponse(request.documentIds());
         }
 
-        List<UUID> accessibleIds = documentRepository
-                .findAllByIdInAndAccessListUsernameAndAccessListPermission(
-                        request.documentIds(),
-                        UserContextHolder.getCurrentUser(),
-                        request.permission()
-                );
+        String currentUser = UserContextHolder.getCurrentUser();
+        List<UUID> accessibleIds = documentAccessIndex
+                .findAccessible(currentUser, request.permission(), request.documentIds())
+                .orElseGet(() -> documentRepository
+                        .findAllByIdInAndAccessListUsernameAndAccessListPermission(
+                                request.documentIds(),
+                                currentUser,
+                                request.permission()
+                        ));
         return new BatchAccessResponse(accessibleIds);
     }
 
-    private Document findDocumentOrThrow(UUID id) {
-        return documentRepository.findById(id)
-                .orElseThrow(() -> new DocumentNotFoundException(
-                        "Document not found with id: " + id
-                ));
+    // the statement was skipped on a known denial, so only existence is left to tell 404 from 403
+    private RuntimeException deniedOrNotFound(UUID id, String message) {
+        if (!documentRepository.existsById(id)) {
+            return new DocumentNotFoundException("Document not found with id: " + id);
+        }
+        return new AccessDeniedException(message);
+    }
+
+    private int permissionsOf(Document document) {
+        String currentUser = UserContextHolder.getCurrentUser();
+        return document.getAccessList().stream()
+                .filter(access -> access.getUsername().equals(currentUser))
+                .mapToInt(DocumentAccess::getPermissions)
+                .findFirst()
+                .orElse(0);
     }
 }
@@ -1,7 +1,9 @@
 package com.progresssoft.docaccess.service.impl;
 
+import com.progresssoft.docaccess.cache.NegativeLookupFilter;
+import com.progresssoft.docaccess.cache.PermissionDecisionCache;
 import com.progresssoft.docaccess.enums.Permission;
-import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.replica.ReplicaReads;
 import com.progresssoft.docaccess.security.UserContextHolder;
 import com.progresssoft.docaccess.service.PermissionService;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +15,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class PermissionServiceImpl implements PermissionService {
 
-    private final DocumentAccessRepository repository;
+    private final PermissionDecisionCache permissionDecisionCache;
+    private final NegativeLookupFilter negativeLookupFilter;
     private static final String ADMIN = "admin";
 
     @Override
@@ -22,20 +25,28 @@ public class PermissionServiceImpl implements PermissionService {
     }
 
     @Override
-    public boolean hasPermission(UUID documentId, Permission permission) {
+    public boolean isKnownDenied(UUID documentId, Permission permission) {
+        if (isAdmin()) return false;
+
         String currentUser = UserContextHolder.getCurrentUser();
+        if (!negativeLookupFilter.mightBeGranted(currentUser, documentId, permission)) return true;
 
-        if (isAdmin()) return true;
+        Integer cached = permissionDecisionCache.getIfPresent(currentUser, documentId);
+        return cached != null && !permission.isGrantedBy(cached);
+    }
 
-        return repository.existsByDocumentIdAndUsernameAndPermission(
-                documentId,
-                currentUser,
-                permission
-        );
+    @Override
+    public long beginLookup() {
+        return permissionDecisionCache.version();
     }
 
     @Override
-    public boolean canGrant(UUID documentId) {
-        return isAdmin() || hasPermission(documentId, Permission.WRITE);
+    public void remember(UUID documentId, int permissions, long lookup) {
+        if (isAdmin()) return;
+
+        // a lagging replica can still show a grant whose revoke already invalidated the cache
+        if (ReplicaReads.isCurrentTransactionOnReplica()) return;
+
+        permissionDecisionCache.putIfUnchanged(UserContextHolder.getCurrentUser(), documentId, permissions, lookup);
     }
 }
@@ -0,0 +1,53 @@
+package com.progresssoft.docaccess.storage;
+
+/**
+ * A single {@code Range: bytes=...} request resolved against a body of known size. {@code end} is
+ * inclusive, as in {@code Content-Range}.
+ */
+record ByteRange(long start, long end) {
+
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    long length() {
+        return end - start + 1;
+    }
+
+    /**
+     * Returns null when the header should be ignored and the whole body sent: absent, malformed,
+     * not in bytes, or asking for several ranges at once.
+     */
+    static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return suffix < 0 ? null : UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= size) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
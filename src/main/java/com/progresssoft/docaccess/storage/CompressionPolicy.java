@@ -0,0 +1,18 @@
+package com.progresssoft.docaccess.storage;
+
+/**
+ * How to encode one body: with {@code encoding} at {@code level}, but only when it is at least
+ * {@code threshold} bytes. Below that the codec overhead outweighs the saving.
+ */
+public record CompressionPolicy(
+        ContentEncoding encoding,
+        int level,
+        long threshold
+) {
+
+    public static final CompressionPolicy NONE = new CompressionPolicy(ContentEncoding.IDENTITY, 0, Long.MAX_VALUE);
+
+    public boolean appliesTo(long size) {
+        return encoding != ContentEncoding.IDENTITY && size >= threshold;
+    }
+}
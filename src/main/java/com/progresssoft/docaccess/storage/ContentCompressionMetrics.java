@@ -0,0 +1,65 @@
+package com.progresssoft.docaccess.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bytes saved by compressing bodies at rest and the CPU time spent encoding on write and decoding
+ * for clients that do not accept the stored encoding. CPU time is the calling thread's, falling
+ * back to wall time where the JVM does not measure it.
+ */
+@Component
+public class ContentCompressionMetrics {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final MeterRegistry meterRegistry;
+
+    public ContentCompressionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public long startCpu() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    public void recordCompression(ContentEncoding encoding, long originalSize, long storedSize, long cpuStart) {
+        cpu(encoding, "compress").record(elapsedSince(cpuStart), TimeUnit.NANOSECONDS);
+        Counter.builder("docaccess.content.compression.saved")
+                .description("Bytes not written to the content store thanks to compression")
+                .baseUnit("bytes")
+                .tag("encoding", encoding.token())
+                .register(meterRegistry)
+                .increment(Math.max(0, originalSize - storedSize));
+    }
+
+    public void recordDecompression(ContentEncoding encoding, long cpuStart) {
+        cpu(encoding, "decompress").record(elapsedSince(cpuStart), TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDelivery(ContentEncoding encoding, boolean precompressed) {
+        Counter.builder("docaccess.content.deliveries")
+                .tag("encoding", encoding.token())
+                .tag("precompressed", Boolean.toString(precompressed))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Timer cpu(ContentEncoding encoding, String operation) {
+        return Timer.builder("docaccess.content.compression.cpu")
+                .description("CPU time spent encoding or decoding stored bodies")
+                .tag("encoding", encoding.token())
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private long elapsedSince(long cpuStart) {
+        return Math.max(0, startCpu() - cpuStart);
+    }
+}
@@ -0,0 +1,52 @@
+package com.progresssoft.docaccess.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compression of bodies at rest. {@code codec}, {@code level} and {@code threshold} apply to every
+ * file type unless {@code file-types.<type>} overrides them, e.g. {@code identity} for formats that
+ * are already compressed.
+ */
+@ConfigurationProperties(prefix = "docaccess.content-store.compression")
+public record ContentCompressionProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("gzip")
+        ContentEncoding codec,
+        @DefaultValue("6")
+        int level,
+        @DefaultValue("1KB")
+        DataSize threshold,
+        Map<String, FileTypePolicy> fileTypes
+) {
+
+    public ContentCompressionProperties {
+        fileTypes = fileTypes == null ? Map.of() : Map.copyOf(fileTypes);
+    }
+
+    public CompressionPolicy policyFor(String fileType) {
+        if (!enabled) {
+            return CompressionPolicy.NONE;
+        }
+        FileTypePolicy override = fileType == null ? null : fileTypes.get(fileType.toLowerCase(Locale.ROOT));
+        if (override == null) {
+            return new CompressionPolicy(codec, level, threshold.toBytes());
+        }
+        return new CompressionPolicy(
+                override.codec() != null ? override.codec() : codec,
+                override.level() != null ? override.level() : level,
+                override.threshold() != null ? override.threshold().toBytes() : threshold.toBytes()
+        );
+    }
+
+    public record FileTypePolicy(
+            ContentEncoding codec,
+            Integer level,
+            DataSize threshold
+    ) {}
+}
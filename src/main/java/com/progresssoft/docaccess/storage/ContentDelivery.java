@@ -0,0 +1,173 @@
+package com.progresssoft.docaccess.storage;
+
+import com.progresssoft.docaccess.util.ETags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Writes a stored body to the response without loading it into a {@code String}. On Tomcat's NIO
+ * connector the file is handed to the connector's sendfile support, so the bytes go from page
+ * cache to socket; elsewhere it is copied with {@code FileChannel.transferTo}. A compressed blob
+ * is sent as is with {@code Content-Encoding} when the client accepts that encoding, and only
+ * decoded for clients that do not. The content hash is the strong ETag, so conditional requests
+ * and single-range requests are answered from the metadata and the slice of the blob they need.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentDelivery {
+
+    static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ContentStore contentStore;
+    private final ContentCompressionMetrics metrics;
+
+    public void deliver(StoredContent content, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        // ranges address the decoded bytes, so a range request never gets the compressed blob
+        boolean precompressed = content.encoding() != ContentEncoding.IDENTITY
+                && rangeHeader == null
+                && accepts(request, content.encoding());
+        String etag = ETags.strong(precompressed ? content.hash() + "-" + content.encoding().token() : content.hash());
+
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // everything so far came from the documents row; the blob is not touched for a 304
+        if (ETags.matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        ByteRange range = rangeOf(request, rangeHeader, etag, content.size());
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + content.size());
+            return;
+        }
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.start() + "-" + range.end() + "/" + content.size());
+            if (content.encoding() == ContentEncoding.IDENTITY) {
+                send(content, range.start(), range.length(), request, response);
+            } else {
+                decode(content, range.start(), range.length(), response);
+            }
+            return;
+        }
+
+        if (content.encoding() != ContentEncoding.IDENTITY && !precompressed) {
+            decode(content, 0, content.size(), response);
+            return;
+        }
+        if (precompressed) {
+            metrics.recordDelivery(content.encoding(), true);
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, content.encoding().token());
+        }
+        send(content, 0, content.storedSize(), request, response);
+    }
+
+    private void send(StoredContent content, long start, long length,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(length);
+
+        Optional<Path> file = contentStore.localPath(content);
+        if (file.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.get().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        contentStore.transferTo(content, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+
+    private void decode(StoredContent content, long start, long length, HttpServletResponse response)
+            throws IOException {
+        metrics.recordDelivery(content.encoding(), false);
+        response.setContentLengthLong(length);
+        long cpuStart = metrics.startCpu();
+        try (InputStream input = contentStore.open(content)) {
+            input.skipNBytes(start);
+            copy(input, response.getOutputStream(), length);
+        } finally {
+            metrics.recordDecompression(content.encoding(), cpuStart);
+        }
+    }
+
+    private static void copy(InputStream input, OutputStream output, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    // If-Range with a different (or a date) validator means "send it all", the copy the client has is stale
+    private static ByteRange rangeOf(HttpServletRequest request, String rangeHeader, String etag, long size) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rangeHeader == null || (ifRange != null && !ETags.matchesStrongly(ifRange, etag))) {
+            return null;
+        }
+        return ByteRange.parse(rangeHeader, size);
+    }
+
+    // Accept-Encoding: gzip, deflate;q=0.5, *;q=0 -- a token with q=0 is a refusal
+    static boolean accepts(HttpServletRequest request, ContentEncoding encoding) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        if (headers == null) {
+            return false;
+        }
+        while (headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                String token = parts[0].trim().toLowerCase(Locale.ROOT);
+                if (token.equals(encoding.token()) || token.equals("*")) {
+                    return qualityOf(parts) > 0;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static double qualityOf(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,63 @@
+package com.progresssoft.docaccess.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** How a body is encoded at rest. Names match the HTTP {@code Content-Encoding} tokens. */
+public enum ContentEncoding {
+
+    IDENTITY("identity", "") {
+        @Override
+        public OutputStream encode(OutputStream output, int level) {
+            return output;
+        }
+
+        @Override
+        public InputStream decode(InputStream input) {
+            return input;
+        }
+    },
+
+    GZIP("gzip", ".gz") {
+        @Override
+        public OutputStream encode(OutputStream output, int level) throws IOException {
+            return new GZIPOutputStream(output, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+
+        @Override
+        public InputStream decode(InputStream input) throws IOException {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String token;
+    private final String suffix;
+
+    ContentEncoding(String token, String suffix) {
+        this.token = token;
+        this.suffix = suffix;
+    }
+
+    /** The {@code Content-Encoding} / {@code Accept-Encoding} token. */
+    public String token() {
+        return token;
+    }
+
+    /** File name suffix of a blob stored with this encoding. */
+    public String suffix() {
+        return suffix;
+    }
+
+    public abstract OutputStream encode(OutputStream output, int level) throws IOException;
+
+    public abstract InputStream decode(InputStream input) throws IOException;
+}
@@ -0,0 +1,70 @@
+package com.progresssoft.docaccess.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for document bodies. Bodies are keyed by the hex SHA-256 of their
+ * bytes, so storing the same body twice keeps one copy. Implementations must make a body visible
+ * only once it is complete.
+ */
+public interface ContentStore {
+
+    /** Stores the body, encoded as {@code policy} says if it is large enough to be worth it. */
+    StoredContent put(InputStream content, CompressionPolicy policy) throws IOException;
+
+    boolean exists(StoredContent content);
+
+    /** The blob as stored, still in {@link StoredContent#encoding()}. */
+    InputStream openRaw(StoredContent content) throws IOException;
+
+    /**
+     * Copies {@code count} bytes of the blob as stored, from {@code position}, to {@code target},
+     * without going through the heap where the store allows it.
+     */
+    long transferTo(StoredContent content, long position, long count, WritableByteChannel target) throws IOException;
+
+    default long transferTo(StoredContent content, WritableByteChannel target) throws IOException {
+        return transferTo(content, 0, Long.MAX_VALUE, target);
+    }
+
+    /** A local file holding the blob as stored, for servers that can send files directly (sendfile). */
+    default Optional<Path> localPath(StoredContent content) {
+        return Optional.empty();
+    }
+
+    default StoredContent put(InputStream content) throws IOException {
+        return put(content, CompressionPolicy.NONE);
+    }
+
+    default StoredContent put(String content, CompressionPolicy policy) {
+        try {
+            return put(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), policy);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    default StoredContent put(String content) {
+        return put(content, CompressionPolicy.NONE);
+    }
+
+    /** The original bytes, decoded if the blob is compressed. */
+    default InputStream open(StoredContent content) throws IOException {
+        return content.encoding().decode(openRaw(content));
+    }
+
+    default String readString(StoredContent content) {
+        try (InputStream input = open(content)) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.progresssoft.docaccess.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+@ConfigurationProperties(prefix = "docaccess.content-store")
+public record ContentStoreProperties(
+        @DefaultValue("filesystem")
+        String type,
+        @DefaultValue("./data/content")
+        Path root,
+        @DefaultValue("true")
+        boolean migrateLegacy
+) {}
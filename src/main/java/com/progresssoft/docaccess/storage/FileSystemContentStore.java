@@ -0,0 +1,176 @@
+package com.progresssoft.docaccess.storage;
+
+import com.progresssoft.docaccess.util.Digests;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Stores each body at {@code <root>/ab/cd/<hash>}, or {@code <hash>.gz} when compressed. Writes go
+ * to a temp file first and are linked into place once the hash is known, so readers never see a
+ * partial body. A blob already at that path is never replaced: concurrent writers of the same body
+ * keep whichever landed first, and report the size of that file.
+ */
+@Component
+@ConditionalOnProperty(prefix = "docaccess.content-store", name = "type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemContentStore implements ContentStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path incoming;
+    private final ContentCompressionMetrics metrics;
+
+    public FileSystemContentStore(ContentStoreProperties properties, ContentCompressionMetrics metrics) {
+        this.root = properties.root().toAbsolutePath().normalize();
+        this.incoming = root.resolve("incoming");
+        this.metrics = metrics;
+        try {
+            Files.createDirectories(incoming);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create content store at " + root, ex);
+        }
+    }
+
+    @Override
+    public StoredContent put(InputStream content, CompressionPolicy policy) throws IOException {
+        // the first threshold bytes decide the encoding, so the body is then written once, already encoded
+        byte[] head = policy.encoding() == ContentEncoding.IDENTITY
+                ? new byte[0]
+                : content.readNBytes((int) Math.min(policy.threshold(), Integer.MAX_VALUE));
+        ContentEncoding encoding = policy.appliesTo(head.length) ? policy.encoding() : ContentEncoding.IDENTITY;
+
+        Path written = Files.createTempFile(incoming, "upload-", ".tmp");
+        try {
+            MessageDigest digest = Digests.sha256();
+            long cpuStart = metrics.startCpu();
+            long size;
+            // the digest sits in front of the encoder, so the hash is of the original bytes
+            try (OutputStream output = new DigestOutputStream(
+                    encoding.encode(Files.newOutputStream(written), policy.level()),
+                    digest
+            )) {
+                output.write(head);
+                size = head.length + content.transferTo(output);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            if (encoding == ContentEncoding.IDENTITY) {
+                moveIntoPlace(written, pathOf(hash, ContentEncoding.IDENTITY));
+                return new StoredContent(hash, size);
+            }
+
+            long storedSize = Files.size(written);
+            metrics.recordCompression(encoding, size, Math.min(size, storedSize), cpuStart);
+            if (storedSize < size) {
+                return new StoredContent(hash, size, encoding, moveIntoPlace(written, pathOf(hash, encoding)));
+            }
+
+            // incompressible input (already compressed formats) is kept as is. It is rare enough that
+            // decoding it again is cheaper than writing every compressed body a second time as well
+            storeDecoded(written, encoding, pathOf(hash, ContentEncoding.IDENTITY));
+            return new StoredContent(hash, size);
+        } finally {
+            Files.deleteIfExists(written);
+        }
+    }
+
+    @Override
+    public boolean exists(StoredContent content) {
+        return Files.exists(pathOf(content));
+    }
+
+    @Override
+    public InputStream openRaw(StoredContent content) throws IOException {
+        return Files.newInputStream(existingPathOf(content));
+    }
+
+    @Override
+    public long transferTo(StoredContent content, long position, long count, WritableByteChannel target)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(existingPathOf(content), StandardOpenOption.READ)) {
+            long end = Math.min(channel.size(), position + Math.min(count, channel.size()));
+            long offset = position;
+            while (offset < end) {
+                offset += channel.transferTo(offset, end - offset, target);
+            }
+            return offset - position;
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(StoredContent content) {
+        Path path = pathOf(content);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private void storeDecoded(Path encoded, ContentEncoding encoding, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return;
+        }
+        Path decoded = Files.createTempFile(incoming, "decode-", ".tmp");
+        try {
+            try (InputStream input = encoding.decode(Files.newInputStream(encoded))) {
+                Files.copy(input, decoded, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moveIntoPlace(decoded, target);
+        } finally {
+            Files.deleteIfExists(decoded);
+        }
+    }
+
+    /** Returns the size of the blob now at {@code target}, which is not the temp file if one was there first. */
+    private long moveIntoPlace(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            // unlike a rename, creating a link fails instead of replacing a blob another writer stored
+            Files.createLink(target, temp);
+        } catch (FileAlreadyExistsException ignored) {
+            // stored concurrently by another writer, same bytes once decoded
+        } catch (UnsupportedOperationException ex) {
+            try {
+                Files.move(temp, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // as above
+            }
+        }
+        Files.deleteIfExists(temp);
+        return Files.size(target);
+    }
+
+    private Path existingPathOf(StoredContent content) throws NoSuchFileException {
+        Path path = pathOf(content);
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(path.toString(), null, "content blob missing for hash " + content.hash());
+        }
+        return path;
+    }
+
+    private Path pathOf(StoredContent content) {
+        return pathOf(content.hash(), content.encoding());
+    }
+
+    private Path pathOf(String hash, ContentEncoding encoding) {
+        if (!HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a content hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + encoding.suffix());
+    }
+}
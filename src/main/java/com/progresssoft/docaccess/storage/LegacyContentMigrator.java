@@ -0,0 +1,70 @@
+package com.progresssoft.docaccess.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Moves bodies still held in {@code documents.content} into the {@link ContentStore} and clears the
+ * column, in small batches. Until a row is moved, readers fall back to the column.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LegacyContentMigrator {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final ContentStoreProperties properties;
+    private final ContentCompressionProperties compressionProperties;
+    private final ContentStore contentStore;
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.migrateLegacy()) {
+            migrate();
+        }
+    }
+
+    public int migrate() {
+        int migrated = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(
+                    "SELECT id, file_type, content FROM documents WHERE content IS NOT NULL ORDER BY id LIMIT ?",
+                    BATCH_SIZE
+            );
+            for (Map<String, Object> row : rows) {
+                StoredContent stored = contentStore.put(
+                        (String) row.get("content"),
+                        compressionProperties.policyFor((String) row.get("file_type"))
+                );
+                migrated += jdbcTemplate.update("""
+                        UPDATE documents
+                        SET content = NULL, content_hash = ?, content_size = ?,
+                            content_encoding = ?, content_stored_size = ?
+                        WHERE id = ?
+                        """,
+                        stored.hash(),
+                        stored.size(),
+                        stored.encoding().name(),
+                        stored.storedSize(),
+                        (UUID) row.get("id")
+                );
+            }
+        } while (rows.size() == BATCH_SIZE);
+
+        if (migrated > 0) {
+            log.info("Moved {} document bodies into the content store", migrated);
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,17 @@
+package com.progresssoft.docaccess.storage;
+
+/**
+ * Address of a stored body: hex SHA-256 and length of the original bytes, plus how the blob is
+ * encoded at rest and its length on disk.
+ */
+public record StoredContent(
+        String hash,
+        long size,
+        ContentEncoding encoding,
+        long storedSize
+) {
+
+    public StoredContent(String hash, long size) {
+        this(hash, size, ContentEncoding.IDENTITY, size);
+    }
+}
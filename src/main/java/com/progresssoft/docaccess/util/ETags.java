@@ -0,0 +1,37 @@
+package com.progresssoft.docaccess.util;
+
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String strong(String value) {
+        return "\"" + value + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} value matches {@code etag}. Uses the weak comparison the
+     * header calls for, so {@code W/"x"} matches {@code "x"}.
+     */
+    public static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(stripWeak(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Strong comparison, as {@code If-Range} requires. */
+    public static boolean matchesStrongly(String value, String etag) {
+        return value != null && !value.startsWith("W/") && value.trim().equals(etag);
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -0,0 +1,31 @@
+package com.progresssoft.docaccess.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered (version 7, RFC 9562) ids for rows written outside Hibernate, matching what the
+ * entities get from {@code @UuidGenerator(style = VERSION_7)}. Consecutive inserts land on the
+ * right-most page of the primary key instead of a random one.
+ */
+public final class Uuids {
+
+    // unix millis << 12 | 12-bit sequence, so ids from one JVM never go backwards within a millisecond
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private Uuids() {
+    }
+
+    public static UUID timeOrdered() {
+        long now = System.currentTimeMillis() << 12;
+        long timestampAndSequence = LAST.updateAndGet(last -> Math.max(last + 1, now));
+
+        long mostSignificant = (timestampAndSequence >>> 12) << 16
+                | 0x7000L
+                | (timestampAndSequence & 0xFFFL);
+        long leastSignificant = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL
+                | 0x8000000000000000L;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
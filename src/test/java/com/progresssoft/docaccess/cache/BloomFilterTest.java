@@ -0,0 +1,63 @@
+package com.progresssoft.docaccess.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 10_000;
+
+    @Test
+    @DisplayName("never reports an added key as absent")
+    void hasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        List<UUID> documentIds = new ArrayList<>();
+        for (int i = 0; i < INSERTIONS; i++) {
+            UUID documentId = UUID.randomUUID();
+            documentIds.add(documentId);
+            filter.add("user" + (i % 100), documentId);
+        }
+
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("user" + (i % 100), documentIds.get(i))).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("keeps false positives close to the configured rate")
+    void keepsFalsePositivesNearConfiguredRate() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.01);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.add("user" + (i % 100), UUID.randomUUID());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("user" + (i % 100), UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    @DisplayName("distinguishes users on the same document")
+    void distinguishesUsersOnSameDocument() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.001);
+        UUID documentId = UUID.randomUUID();
+
+        filter.add("user1", documentId);
+
+        assertThat(filter.mightContain("user1", documentId)).isTrue();
+        assertThat(filter.mightContain("user2", documentId)).isFalse();
+    }
+}
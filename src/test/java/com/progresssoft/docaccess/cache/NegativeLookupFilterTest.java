@@ -0,0 +1,206 @@
+package com.progresssoft.docaccess.cache;
+
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.AclBulkLoadedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.progresssoft.docaccess.support.Threads.awaitBlockedOrDone;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NegativeLookupFilter Tests")
+class NegativeLookupFilterTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NegativeLookupFilter filter;
+
+    private final UUID documentId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new NegativeLookupFilter(
+                new NegativeLookupProperties(true, 1000, 0.01),
+                jdbcTemplate,
+                transactionManager,
+                meterRegistry
+        );
+    }
+
+    @Test
+    @DisplayName("answers maybe for everything before the first rebuild")
+    void answersMaybe_beforeFirstRebuild() {
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isTrue();
+    }
+
+    @Test
+    @DisplayName("rules out missing grants per permission and counts the rejections")
+    void rulesOutMissingGrants() {
+        filter.rebuild();
+        filter.onDocumentCreated(new DocumentCreatedEvent(documentId, Map.of("user1", Permission.READ.getMask())));
+
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isTrue();
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.DELETE)).isFalse();
+        assertThat(filter.mightBeGranted("user2", documentId, Permission.READ)).isFalse();
+        assertThat(meterRegistry.get("docaccess.negative.lookup.rejections").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("lets a new grant through immediately")
+    void letsNewGrantThrough() {
+        filter.rebuild();
+
+        filter.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.WRITE));
+
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.WRITE)).isTrue();
+    }
+
+    @Test
+    @DisplayName("lets every grant of a batch through")
+    void letsBatchGrantsThrough() {
+        filter.rebuild();
+
+        filter.onAccessBatchGranted(new DocumentAccessBatchGrantedEvent(List.of(
+                new DocumentAccessBatchGrantedEvent.Grant(documentId, "user1", Permission.READ.getMask()),
+                new DocumentAccessBatchGrantedEvent.Grant(documentId, "user2", Permission.DELETE.getMask())
+        )));
+
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isTrue();
+        assertThat(filter.mightBeGranted("user2", documentId, Permission.DELETE)).isTrue();
+        assertThat(filter.mightBeGranted("user2", documentId, Permission.READ)).isFalse();
+    }
+
+    @Test
+    @DisplayName("replays grants that arrive while a rebuild is loading")
+    void replaysGrantsDuringRebuild() {
+        doAnswer(invocation -> {
+            filter.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.READ));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        filter.rebuild();
+
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isTrue();
+    }
+
+    @Test
+    @DisplayName("replays grants still uncommitted when a rebuild starts, which its load cannot see")
+    void replaysInFlightGrants() {
+        filter.rebuild();
+        DocumentAccessGrantedEvent granted = new DocumentAccessGrantedEvent(documentId, "user1", Permission.READ);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            filter.onAccessGranted(granted);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        filter.rebuild();
+
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isTrue();
+
+        filter.afterGrantCompleted(granted);
+        filter.rebuild();
+
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isFalse();
+    }
+
+    @Test
+    @DisplayName("stops rejecting during a bulk load and rebuilds once it completes")
+    void suspendsDuringBulkLoad() {
+        filter.rebuild();
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isFalse();
+
+        filter.onAclBulkLoaded(new AclBulkLoadedEvent(1));
+
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightBeGranted("user1", documentId, Permission.READ)).isTrue();
+
+        filter.afterAclBulkLoaded(new AclBulkLoadedEvent(1));
+
+        assertThat(filter.isReady()).isTrue();
+    }
+
+    @Test
+    @DisplayName("runs overlapping rebuilds one after the other")
+    void serializesOverlappingRebuilds() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                Thread overlapping = Thread.ofPlatform().start(() -> {
+                    try {
+                        filter.rebuild();
+                        second.complete(null);
+                    } catch (RuntimeException ex) {
+                        second.completeExceptionally(ex);
+                    }
+                });
+                awaitBlockedOrDone(overlapping);
+                filter.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.READ));
+            } else {
+                filter.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user2", Permission.READ));
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        assertThatCode(filter::rebuild).doesNotThrowAnyException();
+        second.get(5, TimeUnit.SECONDS);
+
+        assertThat(loads).hasValue(2);
+        assertThat(filter.mightBeGranted("user2", documentId, Permission.READ)).isTrue();
+    }
+
+    @Test
+    @DisplayName("does not publish a rebuild that was loading when a bulk load committed")
+    void discardsRebuild_overlappingBulkLoad() {
+        doAnswer(invocation -> {
+            filter.onAclBulkLoaded(new AclBulkLoadedEvent(1));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        filter.rebuild();
+
+        assertThat(filter.isReady()).isFalse();
+    }
+
+    @Test
+    @DisplayName("exposes configured and expected false positive rates")
+    void exposesFalsePositiveRates() {
+        filter.rebuild();
+
+        assertThat(meterRegistry.get("docaccess.negative.lookup.target.false.positive.rate").gauge().value())
+                .isEqualTo(0.01);
+        assertThat(meterRegistry.get("docaccess.negative.lookup.false.positive.rate")
+                .tag("permission", "READ").gauge().value())
+                .isZero();
+    }
+}
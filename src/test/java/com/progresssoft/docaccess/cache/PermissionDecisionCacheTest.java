@@ -0,0 +1,160 @@
+package com.progresssoft.docaccess.cache;
+
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.AclBulkLoadedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessRevokedEvent;
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PermissionDecisionCache Tests")
+class PermissionDecisionCacheTest {
+
+    private final UUID documentId = UUID.randomUUID();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PermissionDecisionCache buildCache(boolean enabled) {
+        return new PermissionDecisionCache(
+                new PermissionCacheProperties(enabled, 100, Duration.ofMinutes(1)),
+                meterRegistry
+        );
+    }
+
+    private void put(PermissionDecisionCache cache, String username, UUID id) {
+        cache.putIfUnchanged(username, id, Permission.READ.getMask(), cache.version());
+    }
+
+    private boolean cached(PermissionDecisionCache cache, String username, UUID id) {
+        return cache.getIfPresent(username, id) != null;
+    }
+
+    @Nested
+    @DisplayName("getIfPresent()")
+    class GetIfPresent {
+
+        @Test
+        @DisplayName("counts hits and misses")
+        void recordsStats() {
+            PermissionDecisionCache cache = buildCache(true);
+
+            assertThat(cached(cache, "user1", documentId)).isFalse();
+            put(cache, "user1", documentId);
+            assertThat(cached(cache, "user1", documentId)).isTrue();
+
+            assertThat(cache.stats().missCount()).isEqualTo(1);
+            assertThat(cache.stats().hitCount()).isEqualTo(1);
+            assertThat(meterRegistry.find("cache.gets").tag("cache", PermissionDecisionCache.CACHE_NAME).meters())
+                    .isNotEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("putIfUnchanged()")
+    class PutIfUnchanged {
+
+        @Test
+        @DisplayName("caches permissions read when nothing was invalidated since")
+        void caches_whenNothingInvalidated() {
+            PermissionDecisionCache cache = buildCache(true);
+            long version = cache.version();
+
+            cache.putIfUnchanged("user1", documentId, Permission.READ.getMask(), version);
+
+            assertThat(cache.getIfPresent("user1", documentId)).isEqualTo(Permission.READ.getMask());
+        }
+
+        @Test
+        @DisplayName("drops permissions read before a grant that committed since")
+        void drops_whenInvalidatedSince() {
+            PermissionDecisionCache cache = buildCache(true);
+            long version = cache.version();
+
+            cache.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.WRITE));
+            cache.putIfUnchanged("user1", documentId, 0, version);
+
+            assertThat(cache.getIfPresent("user1", documentId)).isNull();
+        }
+
+        @Test
+        @DisplayName("caches nothing when disabled")
+        void cachesNothing_whenDisabled() {
+            PermissionDecisionCache cache = buildCache(false);
+
+            cache.putIfUnchanged("user1", documentId, Permission.READ.getMask(), cache.version());
+
+            assertThat(cache.getIfPresent("user1", documentId)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidation")
+    class Invalidation {
+
+        @Test
+        @DisplayName("grant event drops only the grantee's decision")
+        void grantEvent_dropsOnlyGranteeDecision() {
+            PermissionDecisionCache cache = buildCache(true);
+            put(cache, "user1", documentId);
+            put(cache, "user2", documentId);
+
+            cache.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.WRITE));
+
+            assertThat(cached(cache, "user1", documentId)).isFalse();
+            assertThat(cached(cache, "user2", documentId)).isTrue();
+        }
+
+        @Test
+        @DisplayName("delete event drops every decision on the document")
+        void deleteEvent_dropsAllDecisionsOnDocument() {
+            PermissionDecisionCache cache = buildCache(true);
+            UUID otherDocumentId = UUID.randomUUID();
+            put(cache, "user1", documentId);
+            put(cache, "user2", documentId);
+            put(cache, "user1", otherDocumentId);
+
+            cache.onDocumentDeleted(new DocumentDeletedEvent(documentId));
+
+            assertThat(cached(cache, "user1", documentId)).isFalse();
+            assertThat(cached(cache, "user2", documentId)).isFalse();
+            assertThat(cached(cache, "user1", otherDocumentId)).isTrue();
+        }
+
+        @Test
+        @DisplayName("user-wide revoke drops every decision of that user only")
+        void userRevoke_dropsAllDecisionsOfUser() {
+            PermissionDecisionCache cache = buildCache(true);
+            UUID otherDocumentId = UUID.randomUUID();
+            put(cache, "user1", documentId);
+            put(cache, "user1", otherDocumentId);
+            put(cache, "user2", documentId);
+
+            cache.onAccessRevoked(new DocumentAccessRevokedEvent(null, "user1"));
+
+            assertThat(cached(cache, "user1", documentId)).isFalse();
+            assertThat(cached(cache, "user1", otherDocumentId)).isFalse();
+            assertThat(cached(cache, "user2", documentId)).isTrue();
+        }
+
+        @Test
+        @DisplayName("bulk load drops every decision")
+        void bulkLoad_dropsAllDecisions() {
+            PermissionDecisionCache cache = buildCache(true);
+            UUID otherDocumentId = UUID.randomUUID();
+            put(cache, "user1", documentId);
+            put(cache, "user2", otherDocumentId);
+
+            cache.onAclBulkLoaded(new AclBulkLoadedEvent(10));
+
+            assertThat(cached(cache, "user1", documentId)).isFalse();
+            assertThat(cached(cache, "user2", otherDocumentId)).isFalse();
+        }
+    }
+}
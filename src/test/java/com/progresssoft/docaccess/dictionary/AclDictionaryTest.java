@@ -0,0 +1,72 @@
+package com.progresssoft.docaccess.dictionary;
+
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AclDictionary Tests")
+class AclDictionaryTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+
+    private AclDictionary dictionary;
+
+    private final UUID documentId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        dictionary = new AclDictionary(jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("resolves registered keys without touching the database")
+    void resolvesRegisteredKeys() {
+        dictionary.registerUser(3, "user1");
+        dictionary.registerDocument(5_000, documentId);
+
+        assertThat(dictionary.internUser("user1")).isEqualTo(3);
+        assertThat(dictionary.internDocument(documentId)).isEqualTo(5_000);
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(Integer.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("interns unknown keys once and remembers them")
+    void internsUnknownKeysOnce() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class)))
+                .thenReturn(List.of(7));
+
+        assertThat(dictionary.internUser("user1")).isEqualTo(7);
+        assertThat(dictionary.internUser("user1")).isEqualTo(7);
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Integer.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("forgets deleted documents")
+    void forgetsDeletedDocuments() {
+        dictionary.registerDocument(1, documentId);
+
+        dictionary.onDocumentDeleted(new DocumentDeletedEvent(documentId));
+
+        assertThat(dictionary.findDocumentId(documentId)).isEqualTo(AclDictionary.MISSING);
+        assertThat(dictionary.documentCount()).isZero();
+    }
+}
@@ -0,0 +1,33 @@
+package com.progresssoft.docaccess.dictionary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("StringIntHashMap Tests")
+class StringIntHashMapTest {
+
+    private final StringIntHashMap map = new StringIntHashMap(4, -1);
+
+    @Test
+    @DisplayName("returns the missing value for absent keys")
+    void returnsMissingValue_forAbsentKey() {
+        assertThat(map.get("user1")).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("keeps every entry across resizes and overwrites existing keys")
+    void keepsEntries_acrossResizes() {
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(map.put("user-" + i, i)).isEqualTo(-1);
+        }
+
+        assertThat(map.put("user-0", 42)).isZero();
+        assertThat(map.size()).isEqualTo(10_000);
+        assertThat(map.get("user-0")).isEqualTo(42);
+        for (int i = 1; i < 10_000; i++) {
+            assertThat(map.get("user-" + i)).isEqualTo(i);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.progresssoft.docaccess.dictionary;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UuidIntHashMap Tests")
+class UuidIntHashMapTest {
+
+    private final UuidIntHashMap map = new UuidIntHashMap(4, -1);
+
+    @Test
+    @DisplayName("returns the missing value for absent keys")
+    void returnsMissingValue_forAbsentKey() {
+        assertThat(map.get(UUID.randomUUID())).isEqualTo(-1);
+        assertThat(map.remove(UUID.randomUUID())).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("keeps every entry across resizes and overwrites existing keys")
+    void keepsEntries_acrossResizes() {
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID key = UUID.randomUUID();
+            keys.add(key);
+            map.put(key, i);
+        }
+        map.put(keys.getFirst(), 42);
+
+        assertThat(map.size()).isEqualTo(1_000);
+        assertThat(map.get(keys.getFirst())).isEqualTo(42);
+        for (int i = 1; i < keys.size(); i++) {
+            assertThat(map.get(keys.get(i))).isEqualTo(i);
+        }
+    }
+
+    @Test
+    @DisplayName("finds remaining keys after removals")
+    void findsRemainingKeys_afterRemovals() {
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            UUID key = UUID.randomUUID();
+            keys.add(key);
+            map.put(key, i);
+        }
+
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertThat(map.remove(keys.get(i))).isEqualTo(i);
+        }
+
+        assertThat(map.size()).isEqualTo(250);
+        for (int i = 0; i < keys.size(); i++) {
+            assertThat(map.get(keys.get(i))).isEqualTo(i % 2 == 0 ? -1 : i);
+        }
+    }
+}
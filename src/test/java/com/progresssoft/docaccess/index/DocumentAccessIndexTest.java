@@ -0,0 +1,253 @@
+package com.progresssoft.docaccess.index;
+
+import com.progresssoft.docaccess.dictionary.AclDictionary;
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessRevokedEvent;
+import com.progresssoft.docaccess.event.DocumentCreatedEvent;
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.progresssoft.docaccess.support.Threads.awaitBlockedOrDone;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DocumentAccessIndex Tests")
+class DocumentAccessIndexTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private AclDictionary dictionary;
+    private DocumentAccessIndex index;
+
+    private final UUID documentId = UUID.randomUUID();
+    private final UUID otherDocumentId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        dictionary = new AclDictionary(jdbcTemplate, meterRegistry);
+        dictionary.registerUser(0, "user1");
+        dictionary.registerUser(1, "user2");
+        dictionary.registerDocument(0, documentId);
+        dictionary.registerDocument(1, otherDocumentId);
+        index = new DocumentAccessIndex(
+                new AccessIndexProperties(true),
+                dictionary,
+                jdbcTemplate,
+                transactionManager,
+                meterRegistry
+        );
+    }
+
+    @Test
+    @DisplayName("is not ready and defers to the database before the first rebuild")
+    void isNotReady_beforeFirstRebuild() {
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.findAccessible("user1", Permission.READ, List.of(documentId))).isEmpty();
+    }
+
+    @Nested
+    @DisplayName("findAccessible()")
+    class FindAccessible {
+
+        @BeforeEach
+        void rebuild() {
+            index.rebuild();
+            index.onDocumentCreated(new DocumentCreatedEvent(documentId, Map.of(
+                    "user1", Permission.READ.getMask() | Permission.WRITE.getMask(),
+                    "user2", Permission.DELETE.getMask()
+            )));
+            index.onDocumentCreated(new DocumentCreatedEvent(otherDocumentId, Map.of(
+                    "user2", Permission.READ.getMask()
+            )));
+        }
+
+        @Test
+        @DisplayName("returns only requested documents the user holds the permission on")
+        void returnsIntersection() {
+            assertThat(index.findAccessible("user1", Permission.READ, List.of(documentId, otherDocumentId)))
+                    .hasValue(List.of(documentId));
+            assertThat(index.findAccessible("user2", Permission.READ, List.of(documentId, otherDocumentId)))
+                    .hasValue(List.of(otherDocumentId));
+        }
+
+        @Test
+        @DisplayName("returns each accessible document once, in request order, when ids repeat")
+        void returnsEachDocumentOnce_whenIdsRepeat() {
+            List<UUID> requested = List.of(otherDocumentId, documentId, otherDocumentId, documentId);
+
+            assertThat(index.findAccessible("user2", Permission.READ, requested)).hasValue(List.of(otherDocumentId));
+            assertThat(index.findAccessible("user1", Permission.READ, requested)).hasValue(List.of(documentId));
+            index.onAccessGranted(new DocumentAccessGrantedEvent(otherDocumentId, "user1", Permission.READ));
+            assertThat(index.findAccessible("user1", Permission.READ, requested))
+                    .hasValue(List.of(otherDocumentId, documentId));
+        }
+
+        @Test
+        @DisplayName("returns empty list for unknown users and documents")
+        void returnsEmpty_forUnknownUserOrDocument() {
+            assertThat(index.findAccessible("user3", Permission.READ, List.of(documentId))).hasValue(List.of());
+            assertThat(index.findAccessible("user1", Permission.READ, List.of(UUID.randomUUID()))).hasValue(List.of());
+        }
+
+        @Test
+        @DisplayName("reflects grants and deletes")
+        void reflectsGrantsAndDeletes() {
+            index.onAccessGranted(new DocumentAccessGrantedEvent(otherDocumentId, "user1", Permission.READ));
+            assertThat(index.findAccessible("user1", Permission.READ, List.of(documentId, otherDocumentId)))
+                    .hasValue(List.of(documentId, otherDocumentId));
+
+            dictionary.onDocumentDeleted(new DocumentDeletedEvent(documentId));
+            assertThat(index.findAccessible("user1", Permission.READ, List.of(documentId, otherDocumentId)))
+                    .hasValue(List.of(otherDocumentId));
+        }
+
+        @Test
+        @DisplayName("applies a batch grant of known keys without a query")
+        void appliesBatchGrant() {
+            index.onAccessBatchGranted(new DocumentAccessBatchGrantedEvent(List.of(
+                    new DocumentAccessBatchGrantedEvent.Grant(otherDocumentId, "user1", Permission.READ.getMask()),
+                    new DocumentAccessBatchGrantedEvent.Grant(documentId, "user2", Permission.WRITE.getMask())
+            )));
+
+            assertThat(index.findAccessible("user1", Permission.READ, List.of(documentId, otherDocumentId)))
+                    .hasValue(List.of(documentId, otherDocumentId));
+            assertThat(index.findAccessible("user2", Permission.WRITE, List.of(documentId, otherDocumentId)))
+                    .hasValue(List.of(documentId));
+        }
+
+        @Test
+        @DisplayName("reflects revokes of one grant, of a document and of a user")
+        void reflectsRevokes() {
+            List<UUID> both = List.of(documentId, otherDocumentId);
+
+            index.onAccessRevoked(new DocumentAccessRevokedEvent(documentId, "user1"));
+            assertThat(index.findAccessible("user1", Permission.WRITE, both)).hasValue(List.of());
+            assertThat(index.findAccessible("user2", Permission.DELETE, both)).hasValue(List.of(documentId));
+
+            index.onAccessRevoked(new DocumentAccessRevokedEvent(documentId, null));
+            assertThat(index.findAccessible("user2", Permission.DELETE, both)).hasValue(List.of());
+            assertThat(index.findAccessible("user2", Permission.READ, both)).hasValue(List.of(otherDocumentId));
+
+            index.onAccessRevoked(new DocumentAccessRevokedEvent(null, "user2"));
+            assertThat(index.findAccessible("user2", Permission.READ, both)).hasValue(List.of());
+        }
+    }
+
+    @Test
+    @DisplayName("does not intern anything while disabled")
+    void doesNotIntern_whenDisabled() {
+        DocumentAccessIndex disabled = new DocumentAccessIndex(
+                new AccessIndexProperties(false),
+                dictionary,
+                jdbcTemplate,
+                transactionManager,
+                new SimpleMeterRegistry()
+        );
+
+        disabled.onApplicationReady();
+        disabled.onAccessGranted(new DocumentAccessGrantedEvent(UUID.randomUUID(), "user3", Permission.READ));
+        disabled.onDocumentCreated(new DocumentCreatedEvent(UUID.randomUUID(), Map.of("user4", Permission.READ.getMask())));
+
+        verifyNoInteractions(jdbcTemplate);
+        assertThat(disabled.isReady()).isFalse();
+    }
+
+    @Test
+    @DisplayName("falls back to the database when a committed grant cannot be applied")
+    void fallsBack_whenGrantCannotBeApplied() {
+        index.rebuild();
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class)))
+                .thenThrow(new IllegalStateException("connection lost"));
+
+        assertThatCode(() -> index.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user3", Permission.READ)))
+                .doesNotThrowAnyException();
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.findAccessible("user3", Permission.READ, List.of(documentId))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("reports the memory held by its bitmaps")
+    void reportsFootprint() {
+        assertThat(index.footprintBytes()).isZero();
+
+        index.rebuild();
+        index.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.READ));
+
+        assertThat(index.footprintBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("replays changes that arrive while a rebuild is loading")
+    void replaysChangesDuringRebuild() {
+        doAnswer(invocation -> {
+            index.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.READ));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        index.rebuild();
+
+        assertThat(index.findAccessible("user1", Permission.READ, List.of(documentId)))
+                .hasValue(List.of(documentId));
+    }
+
+    @Test
+    @DisplayName("runs overlapping rebuilds one after the other")
+    void serializesOverlappingRebuilds() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        doAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                Thread overlapping = Thread.ofPlatform().start(() -> {
+                    try {
+                        index.rebuild();
+                        second.complete(null);
+                    } catch (RuntimeException ex) {
+                        second.completeExceptionally(ex);
+                    }
+                });
+                awaitBlockedOrDone(overlapping);
+                index.onAccessGranted(new DocumentAccessGrantedEvent(documentId, "user1", Permission.READ));
+            } else {
+                index.onAccessGranted(new DocumentAccessGrantedEvent(otherDocumentId, "user2", Permission.READ));
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        assertThatCode(index::rebuild).doesNotThrowAnyException();
+        second.get(5, TimeUnit.SECONDS);
+
+        assertThat(loads).hasValue(2);
+        assertThat(index.findAccessible("user2", Permission.READ, List.of(otherDocumentId)))
+                .hasValue(List.of(otherDocumentId));
+    }
+}
@@ -0,0 +1,46 @@
+package com.progresssoft.docaccess.pagination;
+
+import com.progresssoft.docaccess.exception.InvalidCursorException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("DocumentCursor Tests")
+class DocumentCursorTest {
+
+    @Test
+    @DisplayName("round-trips the last document id")
+    void roundTripsLastId() {
+        UUID lastId = UUID.randomUUID();
+
+        String cursor = DocumentCursor.encode(lastId);
+
+        assertThat(cursor).doesNotContain(lastId.toString());
+        assertThat(DocumentCursor.decode(cursor)).isEqualTo(lastId);
+    }
+
+    @Test
+    @DisplayName("starts from the beginning without a cursor")
+    void startsFromBeginning_withoutCursor() {
+        assertThat(DocumentCursor.decode(null)).isEqualTo(DocumentCursor.START);
+        assertThat(DocumentCursor.decode("")).isEqualTo(DocumentCursor.START);
+    }
+
+    @Test
+    @DisplayName("rejects tokens that are not cursors")
+    void rejectsInvalidTokens() {
+        String wrongVersion = Base64.getUrlEncoder().withoutPadding().encodeToString(new byte[17]);
+
+        assertThatThrownBy(() -> DocumentCursor.decode("%%%"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> DocumentCursor.decode("abc"))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> DocumentCursor.decode(wrongVersion))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
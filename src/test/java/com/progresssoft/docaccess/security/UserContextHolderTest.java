@@ -0,0 +1,89 @@
+package com.progresssoft.docaccess.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UserContextHolder Tests")
+class UserContextHolderTest {
+
+    @AfterEach
+    void tearDown() {
+        UserContextHolder.clear();
+    }
+
+    @Nested
+    @DisplayName("scoped bindings")
+    class ScopedBindings {
+
+        @Test
+        @DisplayName("restores the outer user when a nested binding closes")
+        void restoresOuterUser() {
+            try (UserContextHolder.Binding ignored = UserContextHolder.bind("alice")) {
+                UserContextHolder.runAs("bob", () -> assertThat(UserContextHolder.getCurrentUser()).isEqualTo("bob"));
+
+                assertThat(UserContextHolder.getCurrentUser()).isEqualTo("alice");
+            }
+
+            assertThat(UserContextHolder.getCurrentUser()).isNull();
+        }
+
+        @Test
+        @DisplayName("restores the outer user when the work throws")
+        void restoresOuterUser_whenWorkThrows() {
+            UserContextHolder.runAs("alice", () ->
+                    assertThatThrownBy(() -> UserContextHolder.callAs("bob", () -> {
+                        throw new IllegalStateException("boom");
+                    })).isInstanceOf(IllegalStateException.class));
+
+            assertThat(UserContextHolder.getCurrentUser()).isNull();
+        }
+
+        @Test
+        @DisplayName("returns the value computed as the user")
+        void returnsValue() throws Exception {
+            assertThat(UserContextHolder.callAs("alice", UserContextHolder::getCurrentUser)).isEqualTo("alice");
+        }
+    }
+
+    @Nested
+    @DisplayName("handing work to other threads")
+    class OtherThreads {
+
+        @Test
+        @DisplayName("wrapped work sees the user of the submitting thread on a virtual thread")
+        void wrap_carriesUserToVirtualThread() throws Exception {
+            AtomicReference<String> seen = new AtomicReference<>();
+
+            Runnable work = UserContextHolder.callAs("alice",
+                    () -> UserContextHolder.wrap(() -> seen.set(UserContextHolder.getCurrentUser())));
+            Thread.ofVirtual().start(work).join();
+
+            assertThat(seen).hasValue("alice");
+        }
+
+        @Test
+        @DisplayName("decorated tasks leave no user behind on a reused pool thread")
+        void decorator_leavesPooledThreadClean() throws Exception {
+            UserContextTaskDecorator decorator = new UserContextTaskDecorator();
+            try (ExecutorService pool = Executors.newSingleThreadExecutor()) {
+                Runnable task = UserContextHolder.callAs("alice",
+                        () -> decorator.decorate(() -> assertThat(UserContextHolder.getCurrentUser()).isEqualTo("alice")));
+                CompletableFuture.runAsync(task, pool).get();
+
+                String leftOver = CompletableFuture.supplyAsync(UserContextHolder::getCurrentUser, pool).get();
+
+                assertThat(leftOver).isNull();
+            }
+        }
+    }
+}
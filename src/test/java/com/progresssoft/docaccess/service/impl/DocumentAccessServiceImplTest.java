@@ -1,13 +1,24 @@
 package com.progresssoft.docaccess.service.impl;
 
+import com.progresssoft.docaccess.dto.request.BatchGrantItem;
+import com.progresssoft.docaccess.dto.request.BatchGrantRequest;
 import com.progresssoft.docaccess.dto.request.GrantPermissionRequest;
-import com.progresssoft.docaccess.entity.Document;
-import com.progresssoft.docaccess.entity.DocumentAccess;
+import com.progresssoft.docaccess.dto.response.BatchGrantResponse;
+import com.progresssoft.docaccess.dto.response.BatchGrantResult;
+import com.progresssoft.docaccess.dto.response.RevokeResponse;
+import com.progresssoft.docaccess.enums.GrantStatus;
 import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessGrantedEvent;
+import com.progresssoft.docaccess.event.DocumentAccessRevokedEvent;
 import com.progresssoft.docaccess.exception.AccessDeniedException;
 import com.progresssoft.docaccess.exception.DocumentNotFoundException;
+import com.progresssoft.docaccess.repository.DocumentAccessBatchOperations.GrantRow;
 import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository.GrantOutcome;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository.RevokeOutcome;
 import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository.DocumentPermissionView;
 import com.progresssoft.docaccess.security.UserContextHolder;
 import com.progresssoft.docaccess.service.PermissionService;
 import org.junit.jupiter.api.AfterEach;
@@ -15,13 +26,13 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.util.Collections;
-import java.util.Optional;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,6 +46,7 @@ class DocumentAccessServiceImplTest {
     @Mock private DocumentRepository documentRepository;
     @Mock private DocumentAccessRepository documentAccessRepository;
     @Mock private PermissionService permissionService;
+    @Mock private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private DocumentAccessServiceImpl documentAccessService;
@@ -46,16 +58,6 @@ class DocumentAccessServiceImplTest {
         UserContextHolder.clear();
     }
 
-    private Document buildDocument() {
-        Document doc = new Document();
-        doc.setId(documentId);
-        doc.setName("Test Document");
-        doc.setContent("Content");
-        doc.setFileType("pdf");
-        doc.setAccessList(Collections.emptyList());
-        return doc;
-    }
-
     @Nested
     @DisplayName("grantPermission()")
     class GrantPermission {
@@ -65,109 +67,284 @@ class DocumentAccessServiceImplTest {
         void grantsPermission_whenAdmin() {
             UserContextHolder.setCurrentUser("admin");
             GrantPermissionRequest request = new GrantPermissionRequest("user3", Permission.READ);
-            Document document = buildDocument();
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.canGrant(documentId)).thenReturn(true);
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user3", Permission.READ
-            )).thenReturn(false);
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentAccessRepository.grantIfPermitted(
+                    any(UUID.class), eq(documentId), eq("user3"), eq(Permission.READ.getMask()),
+                    eq("admin"), eq(true), eq(Permission.WRITE)
+            )).thenReturn(outcome(true, true));
 
             documentAccessService.grantPermission(documentId, request);
 
-            verify(documentAccessRepository).save(any(DocumentAccess.class));
+            verify(eventPublisher).publishEvent(
+                    new DocumentAccessGrantedEvent(documentId, "user3", Permission.READ)
+            );
         }
 
         @Test
-        @DisplayName("grants permission successfully when user has WRITE permission")
+        @DisplayName("leaves the WRITE check to the grant statement for non-admin users")
         void grantsPermission_whenUserHasWritePermission() {
             UserContextHolder.setCurrentUser("user1");
             GrantPermissionRequest request = new GrantPermissionRequest("user4", Permission.READ);
-            Document document = buildDocument();
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.canGrant(documentId)).thenReturn(true);
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user4", Permission.READ
-            )).thenReturn(false);
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentAccessRepository.grantIfPermitted(
+                    any(UUID.class), eq(documentId), eq("user4"), eq(Permission.READ.getMask()),
+                    eq("user1"), eq(false), eq(Permission.WRITE)
+            )).thenReturn(outcome(true, true));
 
             documentAccessService.grantPermission(documentId, request);
 
-            verify(documentAccessRepository).save(any(DocumentAccess.class));
+            verify(documentRepository, never()).existsById(any());
+            verify(documentAccessRepository, never()).save(any());
         }
 
         @Test
-        @DisplayName("saves correct access entity when granting permission")
-        void savesCorrectAccessEntity() {
+        @DisplayName("throws DocumentNotFoundException when document does not exist")
+        void throwsDocumentNotFoundException_whenDocumentNotFound() {
             UserContextHolder.setCurrentUser("admin");
-            GrantPermissionRequest request = new GrantPermissionRequest("user3", Permission.WRITE);
-            Document document = buildDocument();
-
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.canGrant(documentId)).thenReturn(true);
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user3", Permission.WRITE
-            )).thenReturn(false);
+            GrantPermissionRequest request = new GrantPermissionRequest("user3", Permission.READ);
 
-            documentAccessService.grantPermission(documentId, request);
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentAccessRepository.grantIfPermitted(
+                    any(UUID.class), eq(documentId), any(), anyInt(), any(), anyBoolean(), any()
+            )).thenReturn(outcome(false, false));
 
-            ArgumentCaptor<DocumentAccess> captor = ArgumentCaptor.forClass(DocumentAccess.class);
-            verify(documentAccessRepository).save(captor.capture());
+            assertThatThrownBy(() -> documentAccessService.grantPermission(documentId, request))
+                    .isInstanceOf(DocumentNotFoundException.class)
+                    .hasMessageContaining(documentId.toString());
 
-            DocumentAccess saved = captor.getValue();
-            assertThat(saved.getUsername()).isEqualTo("user3");
-            assertThat(saved.getPermission()).isEqualTo(Permission.WRITE);
-            assertThat(saved.getDocument()).isEqualTo(document);
+            verifyNoInteractions(eventPublisher);
         }
 
         @Test
-        @DisplayName("skips saving when permission already exists (idempotent)")
-        void skipsGranting_whenPermissionAlreadyExists() {
-            UserContextHolder.setCurrentUser("admin");
-            GrantPermissionRequest request = new GrantPermissionRequest("user1", Permission.READ);
-            Document document = buildDocument();
+        @DisplayName("throws AccessDeniedException when user has no WRITE permission")
+        void throwsAccessDeniedException_whenNoWritePermission() {
+            UserContextHolder.setCurrentUser("user1");
+            GrantPermissionRequest request = new GrantPermissionRequest("user3", Permission.READ);
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.canGrant(documentId)).thenReturn(true);
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.READ
-            )).thenReturn(true);
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentAccessRepository.grantIfPermitted(
+                    any(UUID.class), eq(documentId), any(), anyInt(), any(), anyBoolean(), any()
+            )).thenReturn(outcome(true, false));
 
-            documentAccessService.grantPermission(documentId, request);
+            assertThatThrownBy(() -> documentAccessService.grantPermission(documentId, request))
+                    .isInstanceOf(AccessDeniedException.class)
+                    .hasMessage("You don't have permission to grant access");
 
-            verify(documentAccessRepository, never()).save(any());
+            verifyNoInteractions(eventPublisher);
         }
 
         @Test
-        @DisplayName("throws DocumentNotFoundException when document does not exist")
-        void throwsDocumentNotFoundException_whenDocumentNotFound() {
+        @DisplayName("skips the grant statement when the caller is known to lack WRITE")
+        void skipsGrantStatement_whenKnownDenied() {
+            UserContextHolder.setCurrentUser("user1");
             GrantPermissionRequest request = new GrantPermissionRequest("user3", Permission.READ);
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.empty());
+            when(permissionService.isKnownDenied(documentId, Permission.WRITE)).thenReturn(true);
+            when(documentRepository.existsById(documentId)).thenReturn(true);
 
             assertThatThrownBy(() -> documentAccessService.grantPermission(documentId, request))
-                    .isInstanceOf(DocumentNotFoundException.class)
-                    .hasMessageContaining(documentId.toString());
+                    .isInstanceOf(AccessDeniedException.class)
+                    .hasMessage("You don't have permission to grant access");
 
-            verifyNoInteractions(permissionService);
-            verifyNoInteractions(documentAccessRepository);
+            verify(documentAccessRepository, never())
+                    .grantIfPermitted(any(), any(), any(), anyInt(), any(), anyBoolean(), any());
+            verifyNoInteractions(eventPublisher);
         }
 
+        private GrantOutcome outcome(boolean found, boolean granted) {
+            return new GrantOutcome() {
+                @Override
+                public boolean isFound() {
+                    return found;
+                }
+
+                @Override
+                public boolean isGranted() {
+                    return granted;
+                }
+            };
+        }
+    }
+
+    @Nested
+    @DisplayName("grantPermissions()")
+    class GrantPermissions {
+
+        private final UUID writableId = UUID.randomUUID();
+        private final UUID readOnlyId = UUID.randomUUID();
+        private final UUID missingId = UUID.randomUUID();
+
         @Test
-        @DisplayName("throws AccessDeniedException when user has no WRITE permission")
-        void throwsAccessDeniedException_whenNoWritePermission() {
+        @DisplayName("reports a result per item and upserts only the authorized ones in one call")
+        void reportsPerItemResults() {
             UserContextHolder.setCurrentUser("user1");
-            GrantPermissionRequest request = new GrantPermissionRequest("user3", Permission.READ);
-            Document document = buildDocument();
+            BatchGrantRequest request = new BatchGrantRequest(List.of(
+                    new BatchGrantItem(writableId, "user3", Permission.READ),
+                    new BatchGrantItem(readOnlyId, "user3", Permission.READ),
+                    new BatchGrantItem(missingId, "user3", Permission.READ)
+            ));
+
+            when(documentRepository.findPermissionsByIdIn(Set.of(writableId, readOnlyId, missingId), "user1"))
+                    .thenReturn(List.of(
+                            permissionView(writableId, Permission.WRITE.getMask()),
+                            permissionView(readOnlyId, Permission.READ.getMask())
+                    ));
+            when(permissionService.isAdmin()).thenReturn(false);
+
+            BatchGrantResponse response = documentAccessService.grantPermissions(request);
+
+            assertThat(response.granted()).isEqualTo(1);
+            assertThat(response.results()).extracting(BatchGrantResult::status)
+                    .containsExactly(GrantStatus.GRANTED, GrantStatus.FORBIDDEN, GrantStatus.NOT_FOUND);
+            verify(documentAccessRepository).upsertAll(List.of(
+                    new GrantRow(writableId, "user3", Permission.READ.getMask())
+            ));
+            verify(eventPublisher).publishEvent(new DocumentAccessBatchGrantedEvent(List.of(
+                    new DocumentAccessBatchGrantedEvent.Grant(writableId, "user3", Permission.READ.getMask())
+            )));
+            verifyNoMoreInteractions(eventPublisher);
+        }
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.canGrant(documentId)).thenReturn(false);
+        @Test
+        @DisplayName("merges several permissions for the same user and document into one row")
+        void mergesPermissionsPerUserAndDocument() {
+            UserContextHolder.setCurrentUser("admin");
+            BatchGrantRequest request = new BatchGrantRequest(List.of(
+                    new BatchGrantItem(writableId, "user3", Permission.READ),
+                    new BatchGrantItem(writableId, "user3", Permission.DELETE),
+                    new BatchGrantItem(writableId, "user4", Permission.READ)
+            ));
+
+            when(documentRepository.findPermissionsByIdIn(Set.of(writableId), "admin"))
+                    .thenReturn(List.of(permissionView(writableId, 0)));
+            when(permissionService.isAdmin()).thenReturn(true);
+
+            BatchGrantResponse response = documentAccessService.grantPermissions(request);
+
+            assertThat(response.granted()).isEqualTo(3);
+            verify(documentAccessRepository).upsertAll(List.of(
+                    new GrantRow(writableId, "user3", Permission.READ.getMask() | Permission.DELETE.getMask()),
+                    new GrantRow(writableId, "user4", Permission.READ.getMask())
+            ));
+            verify(eventPublisher).publishEvent(new DocumentAccessBatchGrantedEvent(List.of(
+                    new DocumentAccessBatchGrantedEvent.Grant(
+                            writableId, "user3", Permission.READ.getMask() | Permission.DELETE.getMask()),
+                    new DocumentAccessBatchGrantedEvent.Grant(writableId, "user4", Permission.READ.getMask())
+            )));
+            verifyNoMoreInteractions(eventPublisher);
+        }
 
-            assertThatThrownBy(() -> documentAccessService.grantPermission(documentId, request))
+        private DocumentPermissionView permissionView(UUID id, int permissions) {
+            return new DocumentPermissionView() {
+                @Override
+                public UUID getId() {
+                    return id;
+                }
+
+                @Override
+                public int getPermissions() {
+                    return permissions;
+                }
+            };
+        }
+    }
+
+    @Nested
+    @DisplayName("revoke")
+    class Revoke {
+
+        @Test
+        @DisplayName("revokes one grant and publishes the revoke when the caller holds WRITE")
+        void revokesGrant_whenCallerHoldsWrite() {
+            UserContextHolder.setCurrentUser("user1");
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentAccessRepository.revokeIfPermitted(documentId, "user2", "user1", false, Permission.WRITE))
+                    .thenReturn(outcome(true, true, 1, "user2"));
+
+            RevokeResponse response = documentAccessService.revokePermission(documentId, "user2");
+
+            assertThat(response.revoked()).isEqualTo(1);
+            verify(eventPublisher).publishEvent(new DocumentAccessRevokedEvent(documentId, "user2"));
+        }
+
+        @Test
+        @DisplayName("revokes every grant on a document in one statement and names whose grants went")
+        void revokesDocumentGrants() {
+            UserContextHolder.setCurrentUser("admin");
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentAccessRepository.revokeIfPermitted(documentId, null, "admin", true, Permission.WRITE))
+                    .thenReturn(outcome(true, true, 3, "user1", "user2", "user3"));
+
+            assertThat(documentAccessService.revokeDocumentPermissions(documentId).revoked()).isEqualTo(3);
+            verify(eventPublisher).publishEvent(
+                    new DocumentAccessRevokedEvent(documentId, null, List.of("user1", "user2", "user3")));
+        }
+
+        @Test
+        @DisplayName("publishes nothing when there was no grant to revoke")
+        void publishesNothing_whenNothingRevoked() {
+            UserContextHolder.setCurrentUser("admin");
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentAccessRepository.revokeIfPermitted(documentId, "user9", "admin", true, Permission.WRITE))
+                    .thenReturn(outcome(true, true, 0));
+
+            assertThat(documentAccessService.revokePermission(documentId, "user9").revoked()).isZero();
+            verifyNoInteractions(eventPublisher);
+        }
+
+        @Test
+        @DisplayName("maps a missing document to 404 and a missing WRITE to 403")
+        void mapsOutcomeToErrors() {
+            UserContextHolder.setCurrentUser("user1");
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentAccessRepository.revokeIfPermitted(documentId, "user2", "user1", false, Permission.WRITE))
+                    .thenReturn(outcome(false, false, 0), outcome(true, false, 0));
+
+            assertThatThrownBy(() -> documentAccessService.revokePermission(documentId, "user2"))
+                    .isInstanceOf(DocumentNotFoundException.class);
+            assertThatThrownBy(() -> documentAccessService.revokePermission(documentId, "user2"))
                     .isInstanceOf(AccessDeniedException.class)
-                    .hasMessage("You don't have permission to grant access");
+                    .hasMessage("You don't have permission to revoke access");
+            verifyNoInteractions(eventPublisher);
+        }
 
-            verify(documentAccessRepository, never()).save(any());
+        @Test
+        @DisplayName("revokes every grant of a user for admin only")
+        void revokesUserGrants_forAdminOnly() {
+            when(permissionService.isAdmin()).thenReturn(false, true);
+            when(documentAccessRepository.deleteAllByUsername("user2")).thenReturn(42);
+
+            assertThatThrownBy(() -> documentAccessService.revokeUserPermissions("user2"))
+                    .isInstanceOf(AccessDeniedException.class);
+            assertThat(documentAccessService.revokeUserPermissions("user2").revoked()).isEqualTo(42);
+            verify(documentAccessRepository, times(1)).deleteAllByUsername("user2");
+            verify(eventPublisher).publishEvent(new DocumentAccessRevokedEvent(null, "user2"));
+        }
+
+        private RevokeOutcome outcome(boolean found, boolean permitted, long revoked, String... usernames) {
+            return new RevokeOutcome() {
+                @Override
+                public boolean isFound() {
+                    return found;
+                }
+
+                @Override
+                public boolean isPermitted() {
+                    return permitted;
+                }
+
+                @Override
+                public long getRevoked() {
+                    return revoked;
+                }
+
+                @Override
+                public String[] getRevokedUsernames() {
+                    return usernames.length == 0 ? null : usernames;
+                }
+            };
         }
     }
-}
\ No newline at end of file
+}
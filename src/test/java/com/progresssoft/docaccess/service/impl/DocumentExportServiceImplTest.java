@@ -0,0 +1,137 @@
+package com.progresssoft.docaccess.service.impl;
+
+import com.progresssoft.docaccess.entity.Document;
+import com.progresssoft.docaccess.entity.DocumentAccess;
+import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.mapper.DocumentMapper;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.security.UserContextHolder;
+import com.progresssoft.docaccess.service.PermissionService;
+import com.progresssoft.docaccess.storage.ContentStore;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DocumentExportService Tests")
+class DocumentExportServiceImplTest {
+
+    @Mock private DocumentRepository documentRepository;
+    @Mock private DocumentAccessRepository documentAccessRepository;
+    @Mock private PermissionService permissionService;
+    @Mock private EntityManager entityManager;
+    @Mock private ContentStore contentStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DocumentExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new DocumentExportServiceImpl(
+                documentRepository,
+                documentAccessRepository,
+                permissionService,
+                new DocumentMapper(contentStore),
+                objectMapper,
+                entityManager
+        );
+    }
+
+    @AfterEach
+    void clearContext() {
+        UserContextHolder.clear();
+    }
+
+    private Document buildDocument(String name) {
+        Document document = new Document();
+        document.setId(UUID.randomUUID());
+        document.setName(name);
+        document.setContent("Content");
+        document.setFileType("pdf");
+        return document;
+    }
+
+    @Test
+    @DisplayName("writes one JSON line per accessible document with its access list")
+    void writesOneLinePerDocument() throws Exception {
+        UserContextHolder.setCurrentUser("user1");
+        Document first = buildDocument("first");
+        Document second = buildDocument("second");
+        DocumentAccess access = DocumentAccess.builder()
+                .username("user1")
+                .permissions(Permission.READ.getMask())
+                .document(first)
+                .build();
+
+        when(permissionService.isAdmin()).thenReturn(false);
+        when(documentRepository.streamAccessible("user1", Permission.READ)).thenReturn(Stream.of(first, second));
+        when(documentAccessRepository.findAllByDocumentIdIn(List.of(first.getId(), second.getId())))
+                .thenReturn(List.of(access));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportAccessibleDocuments(output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("name").asText()).isEqualTo("first");
+        assertThat(objectMapper.readTree(lines[0]).get("accessibleUsers").size()).isEqualTo(1);
+        assertThat(objectMapper.readTree(lines[1]).get("accessibleUsers").size()).isZero();
+        verify(documentRepository, never()).streamAll();
+    }
+
+    @Test
+    @DisplayName("loads access lists per chunk and clears the persistence context after each chunk")
+    void clearsPersistenceContextPerChunk() throws Exception {
+        List<Document> documents = new ArrayList<>();
+        IntStream.range(0, DocumentExportServiceImpl.CHUNK_SIZE + 1)
+                .forEach(i -> documents.add(buildDocument("doc-" + i)));
+
+        when(permissionService.isAdmin()).thenReturn(true);
+        when(documentRepository.streamAll()).thenReturn(documents.stream());
+        when(documentAccessRepository.findAllByDocumentIdIn(anyCollection())).thenReturn(List.of());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportAccessibleDocuments(output);
+
+        assertThat(output.toString(StandardCharsets.UTF_8).lines()).hasSize(documents.size());
+        verify(documentAccessRepository, times(2)).findAllByDocumentIdIn(anyCollection());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("writes nothing when no documents are accessible")
+    void writesNothing_whenNoDocuments() throws Exception {
+        UserContextHolder.setCurrentUser("user3");
+
+        when(permissionService.isAdmin()).thenReturn(false);
+        when(documentRepository.streamAccessible("user3", Permission.READ)).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportAccessibleDocuments(output);
+
+        assertThat(output.size()).isZero();
+        verify(entityManager, never()).clear();
+    }
+}
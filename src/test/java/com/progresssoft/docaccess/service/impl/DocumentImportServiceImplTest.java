@@ -0,0 +1,182 @@
+package com.progresssoft.docaccess.service.impl;
+
+import com.progresssoft.docaccess.bulk.ImportProperties;
+import com.progresssoft.docaccess.dto.response.ImportReport;
+import com.progresssoft.docaccess.entity.Document;
+import com.progresssoft.docaccess.event.DocumentAccessBatchGrantedEvent;
+import com.progresssoft.docaccess.exception.AccessDeniedException;
+import com.progresssoft.docaccess.mapper.DocumentMapper;
+import com.progresssoft.docaccess.repository.DocumentAccessBatchOperations.GrantRow;
+import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.security.UserContextHolder;
+import com.progresssoft.docaccess.service.PermissionService;
+import com.progresssoft.docaccess.storage.CompressionPolicy;
+import com.progresssoft.docaccess.storage.ContentCompressionProperties;
+import com.progresssoft.docaccess.storage.ContentStore;
+import com.progresssoft.docaccess.storage.StoredContent;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DocumentImportService Tests")
+class DocumentImportServiceImplTest {
+
+    private static final String VALID_LINE = """
+            {"name":"Doc","content":"Content","fileType":"txt","accessibleUsers":[{"username":"user1","permission":"READ"},{"username":"user1","permission":"WRITE"}]}
+            """;
+
+    @Mock private DocumentRepository documentRepository;
+    @Mock private DocumentAccessRepository documentAccessRepository;
+    @Mock private PermissionService permissionService;
+    @Mock private ContentStore contentStore;
+    @Mock private ContentCompressionProperties compressionProperties;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private DocumentImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new DocumentImportServiceImpl(
+                documentRepository,
+                documentAccessRepository,
+                permissionService,
+                new DocumentMapper(contentStore),
+                contentStore,
+                compressionProperties,
+                new ImportProperties(2, 1, null, "admin"),
+                eventPublisher,
+                new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                transactionManager
+        );
+        UserContextHolder.setCurrentUser("admin");
+    }
+
+    @AfterEach
+    void clearContext() {
+        UserContextHolder.clear();
+    }
+
+    private InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void givenContentStored() {
+        when(compressionProperties.policyFor("txt")).thenReturn(CompressionPolicy.NONE);
+        when(contentStore.put(anyString(), any(CompressionPolicy.class))).thenReturn(new StoredContent("hash", 7));
+    }
+
+    @Nested
+    @DisplayName("importDocuments")
+    class ImportDocuments {
+
+        @Test
+        @DisplayName("writes documents and their merged grants one chunk per transaction")
+        void writesOneChunkPerTransaction() throws Exception {
+            when(permissionService.isAdmin()).thenReturn(true);
+            givenContentStored();
+
+            ImportReport report = importService.importDocuments(ndjson(VALID_LINE, VALID_LINE, "\n", VALID_LINE));
+
+            assertThat(report.imported()).isEqualTo(3);
+            assertThat(report.failed()).isZero();
+            assertThat(report.grants()).isEqualTo(3);
+            verify(documentRepository, times(2)).insertAll(anyCollection());
+            verify(transactionManager, times(2)).commit(any());
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<Collection<GrantRow>> grants = ArgumentCaptor.forClass(Collection.class);
+            verify(documentAccessRepository, times(2)).upsertAll(grants.capture());
+            GrantRow grant = grants.getAllValues().getFirst().iterator().next();
+            assertThat(grant.username()).isEqualTo("user1");
+            assertThat(grant.permissions()).isEqualTo(0b011);
+            assertThat(grant.documentId()).isNotNull();
+
+            ArgumentCaptor<DocumentAccessBatchGrantedEvent> events = ArgumentCaptor.forClass(DocumentAccessBatchGrantedEvent.class);
+            verify(eventPublisher, times(2)).publishEvent(events.capture());
+            assertThat(events.getAllValues().getFirst().grants()).hasSize(2);
+            DocumentAccessBatchGrantedEvent.Grant last = events.getValue().grants().getFirst();
+            assertThat(last.username()).isEqualTo("user1");
+            assertThat(last.permissions()).isEqualTo(0b011);
+        }
+
+        @Test
+        @DisplayName("skips malformed and invalid lines and reports them by line number, capped")
+        void reportsInvalidLines() throws Exception {
+            when(permissionService.isAdmin()).thenReturn(true);
+            givenContentStored();
+
+            ImportReport report = importService.importDocuments(ndjson(
+                    "not json\n",
+                    VALID_LINE,
+                    "{\"name\":\"\",\"content\":\"x\",\"fileType\":\"txt\"}\n"
+            ));
+
+            assertThat(report.imported()).isEqualTo(1);
+            assertThat(report.failed()).isEqualTo(2);
+            assertThat(report.errors()).hasSize(1);
+            assertThat(report.errors().getFirst().line()).isEqualTo(1);
+            assertThat(report.errors().getFirst().message()).startsWith("malformed JSON");
+            verify(contentStore, times(1)).put(anyString(), any(CompressionPolicy.class));
+        }
+
+        @Test
+        @DisplayName("counts every line of a rolled-back chunk as failed and carries on")
+        void continuesAfterFailedChunk() throws Exception {
+            when(permissionService.isAdmin()).thenReturn(true);
+            givenContentStored();
+            when(documentRepository.insertAll(anyCollection()))
+                    .thenThrow(new DataIntegrityViolationException("duplicate"))
+                    .thenReturn(new int[] {1});
+
+            ImportReport report = importService.importDocuments(ndjson(VALID_LINE, VALID_LINE, VALID_LINE));
+
+            assertThat(report.imported()).isEqualTo(1);
+            assertThat(report.failed()).isEqualTo(2);
+            verify(transactionManager).rollback(any());
+            verify(eventPublisher, times(1)).publishEvent(any(DocumentAccessBatchGrantedEvent.class));
+        }
+
+        @Test
+        @DisplayName("rejects non-admin callers before reading the stream")
+        void rejectsNonAdmin() {
+            when(permissionService.isAdmin()).thenReturn(false);
+
+            assertThatThrownBy(() -> importService.importDocuments(ndjson(VALID_LINE)))
+                    .isInstanceOf(AccessDeniedException.class);
+            verifyNoInteractions(contentStore, documentRepository);
+            verify(transactionManager, never()).getTransaction(any());
+        }
+    }
+}
@@ -1,17 +1,37 @@
 package com.progresssoft.docaccess.service.impl;
 
+import com.progresssoft.docaccess.dto.request.AccessibleUsersRequest;
 import com.progresssoft.docaccess.dto.request.BatchAccessRequest;
 import com.progresssoft.docaccess.dto.request.CreateDocumentRequest;
+import com.progresssoft.docaccess.dto.request.UploadDocumentRequest;
 import com.progresssoft.docaccess.dto.response.BatchAccessResponse;
+import com.progresssoft.docaccess.dto.response.DocumentPageResponse;
 import com.progresssoft.docaccess.dto.response.DocumentResponse;
+import com.progresssoft.docaccess.dto.response.DocumentSummaryResponse;
+import com.progresssoft.docaccess.dto.response.VersionedResponse;
 import com.progresssoft.docaccess.entity.Document;
+import com.progresssoft.docaccess.entity.DocumentAccess;
 import com.progresssoft.docaccess.enums.Permission;
+import com.progresssoft.docaccess.event.DocumentCreatedEvent;
+import com.progresssoft.docaccess.event.DocumentDeletedEvent;
 import com.progresssoft.docaccess.exception.AccessDeniedException;
 import com.progresssoft.docaccess.exception.DocumentNotFoundException;
+import com.progresssoft.docaccess.exception.EmptyContentException;
+import com.progresssoft.docaccess.exception.InvalidCursorException;
+import com.progresssoft.docaccess.index.DocumentAccessIndex;
 import com.progresssoft.docaccess.mapper.DocumentMapper;
+import com.progresssoft.docaccess.pagination.DocumentCursor;
+import com.progresssoft.docaccess.pagination.PaginationProperties;
 import com.progresssoft.docaccess.repository.DocumentRepository;
+import com.progresssoft.docaccess.repository.DocumentRepository.DocumentContentView;
+import com.progresssoft.docaccess.repository.DocumentRepository.DocumentSummaryView;
 import com.progresssoft.docaccess.security.UserContextHolder;
 import com.progresssoft.docaccess.service.PermissionService;
+import com.progresssoft.docaccess.storage.CompressionPolicy;
+import com.progresssoft.docaccess.storage.ContentCompressionProperties;
+import com.progresssoft.docaccess.storage.ContentEncoding;
+import com.progresssoft.docaccess.storage.ContentStore;
+import com.progresssoft.docaccess.storage.StoredContent;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,10 +39,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -37,11 +64,20 @@ class DocumentServiceImplTest {
     @Mock private DocumentRepository documentRepository;
     @Mock private PermissionService permissionService;
     @Mock private DocumentMapper documentMapper;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private DocumentAccessIndex documentAccessIndex;
+    @Mock private ContentStore contentStore;
+    @Spy private ContentCompressionProperties compressionProperties = new ContentCompressionProperties(
+            true, ContentEncoding.GZIP, 6, DataSize.ofKilobytes(1),
+            Map.of("pdf", new ContentCompressionProperties.FileTypePolicy(ContentEncoding.IDENTITY, null, null))
+    );
+    @Spy private PaginationProperties paginationProperties = new PaginationProperties(2, 5);
 
     @InjectMocks
     private DocumentServiceImpl documentService;
 
     private final UUID documentId = UUID.randomUUID();
+    private final StoredContent storedContent = new StoredContent("a".repeat(64), 7);
 
     @AfterEach
     void clearContext() {
@@ -58,6 +94,20 @@ class DocumentServiceImplTest {
         return doc;
     }
 
+    private Document buildDocument(String username, int permissions) {
+        Document doc = buildDocument();
+        doc.setAccessList(List.of(DocumentAccess.builder()
+                .username(username)
+                .permissions(permissions)
+                .document(doc)
+                .build()));
+        return doc;
+    }
+
+    private DocumentSummaryResponse buildSummaryResponse() {
+        return new DocumentSummaryResponse(documentId, "Test Document", "pdf", "admin", 7, "hash");
+    }
+
     private DocumentResponse buildDocumentResponse() {
         return new DocumentResponse(
                 documentId,
@@ -83,7 +133,8 @@ class DocumentServiceImplTest {
             DocumentResponse response = buildDocumentResponse();
 
             when(permissionService.isAdmin()).thenReturn(true);
-            when(documentMapper.toEntity(request, "admin")).thenReturn(document);
+            when(contentStore.put("Content", compressionProperties.policyFor("pdf"))).thenReturn(storedContent);
+            when(documentMapper.toEntity(request, storedContent, "admin")).thenReturn(document);
             when(documentRepository.save(document)).thenReturn(document);
             when(documentMapper.toResponse(document)).thenReturn(response);
 
@@ -93,6 +144,42 @@ class DocumentServiceImplTest {
             assertThat(result.id()).isEqualTo(documentId);
             assertThat(result.name()).isEqualTo("Test Document");
             verify(documentRepository).save(document);
+            verify(eventPublisher).publishEvent(new DocumentCreatedEvent(documentId, Map.of()));
+        }
+
+        @Test
+        @DisplayName("stores content with the compression policy of its file type")
+        void storesContent_withFileTypePolicy() {
+            UserContextHolder.setCurrentUser("admin");
+            CreateDocumentRequest request = new CreateDocumentRequest(
+                    "Notes", "Content", "txt", null
+            );
+            Document document = buildDocument();
+
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(contentStore.put(eq("Content"), any(CompressionPolicy.class))).thenReturn(storedContent);
+            when(documentMapper.toEntity(request, storedContent, "admin")).thenReturn(document);
+            when(documentRepository.save(document)).thenReturn(document);
+
+            documentService.createDocument(request);
+
+            verify(contentStore).put("Content", new CompressionPolicy(ContentEncoding.GZIP, 6, 1024));
+        }
+
+        @Test
+        @DisplayName("does not write to the content store when user is not admin")
+        void neverStoresContent_whenNotAdmin() {
+            UserContextHolder.setCurrentUser("user1");
+            CreateDocumentRequest request = new CreateDocumentRequest(
+                    "Test", "Content", "pdf", null
+            );
+
+            when(permissionService.isAdmin()).thenReturn(false);
+
+            assertThatThrownBy(() -> documentService.createDocument(request))
+                    .isInstanceOf(AccessDeniedException.class);
+
+            verifyNoInteractions(contentStore);
         }
 
         @Test
@@ -131,39 +218,262 @@ class DocumentServiceImplTest {
     }
 
     @Nested
-    @DisplayName("getAllAccessibleDocuments()")
-    class GetAllAccessibleDocuments {
+    @DisplayName("uploadDocument()")
+    class UploadDocument {
+
+        private final UploadDocumentRequest request =
+                new UploadDocumentRequest("Big", "txt", List.of("user1:READ"));
+
+        @Test
+        @DisplayName("streams the body into the content store and returns the stored metadata")
+        void storesStreamedContent_whenAdmin() throws Exception {
+            UserContextHolder.setCurrentUser("admin");
+            InputStream content = new ByteArrayInputStream("Content".getBytes(StandardCharsets.UTF_8));
+            Document document = buildDocument("user1", Permission.READ.getMask());
+            DocumentSummaryResponse summary = buildSummaryResponse();
+
+            CompressionPolicy policy = compressionProperties.policyFor("txt");
+
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(contentStore.put(any(InputStream.class), eq(policy))).thenAnswer(invocation -> {
+                assertThat(invocation.getArgument(0, InputStream.class).readAllBytes())
+                        .isEqualTo("Content".getBytes(StandardCharsets.UTF_8));
+                return storedContent;
+            });
+            when(documentMapper.toEntity(request, storedContent, "admin")).thenReturn(document);
+            when(documentRepository.save(document)).thenReturn(document);
+            when(documentMapper.toSummary(document)).thenReturn(summary);
+
+            assertThat(documentService.uploadDocument(request, content)).isEqualTo(summary);
+            verify(eventPublisher).publishEvent(
+                    new DocumentCreatedEvent(documentId, Map.of("user1", Permission.READ.getMask())));
+        }
+
+        @Test
+        @DisplayName("does not read the body when user is not admin")
+        void neverReadsBody_whenNotAdmin() {
+            UserContextHolder.setCurrentUser("user1");
+
+            when(permissionService.isAdmin()).thenReturn(false);
+
+            assertThatThrownBy(() -> documentService.uploadDocument(request, InputStream.nullInputStream()))
+                    .isInstanceOf(AccessDeniedException.class);
+
+            verifyNoInteractions(contentStore, documentRepository);
+        }
+
+        @Test
+        @DisplayName("rejects an empty body without storing anything")
+        void rejectsEmptyBody() throws Exception {
+            UserContextHolder.setCurrentUser("admin");
+            InputStream content = InputStream.nullInputStream();
+
+            when(permissionService.isAdmin()).thenReturn(true);
+
+            assertThatThrownBy(() -> documentService.uploadDocument(request, content))
+                    .isInstanceOf(EmptyContentException.class);
+
+            verifyNoInteractions(contentStore, documentRepository);
+        }
+
+        @Test
+        @DisplayName("parses access parameters into grants")
+        void parsesAccessParameters() {
+            UploadDocumentRequest withGrants = new UploadDocumentRequest(
+                    "Big", "txt", List.of("user1:READ", "team:ops:DELETE"));
+
+            assertThat(withGrants.accessibleUsers()).containsExactly(
+                    new AccessibleUsersRequest("user1", Permission.READ),
+                    new AccessibleUsersRequest("team:ops", Permission.DELETE)
+            );
+        }
+    }
+
+    @Nested
+    @DisplayName("getAccessibleDocuments()")
+    class GetAccessibleDocuments {
+
+        @Test
+        @DisplayName("pages over all documents when user is admin")
+        void pagesOverAllDocuments_whenAdmin() {
+            UserContextHolder.setCurrentUser("admin");
+            List<DocumentSummaryView> documents = List.of(mock(DocumentSummaryView.class));
+            List<DocumentSummaryResponse> responses = List.of(buildSummaryResponse());
+
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentRepository.findPageAfter(DocumentCursor.START, 3)).thenReturn(documents);
+            when(documentMapper.toSummaryList(documents)).thenReturn(responses);
+
+            DocumentPageResponse result = documentService.getAccessibleDocuments(null, null);
+
+            assertThat(result.documents()).hasSize(1);
+            assertThat(result.nextCursor()).isNull();
+            verify(documentRepository, never()).findAll();
+        }
+
+        @Test
+        @DisplayName("pages over READ-accessible documents when user is not admin")
+        void pagesOverAccessibleDocuments_whenNotAdmin() {
+            UserContextHolder.setCurrentUser("user1");
+
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentRepository.findAccessiblePageAfter("user1", Permission.READ, DocumentCursor.START, 3))
+                    .thenReturn(Collections.emptyList());
+            when(documentMapper.toSummaryList(Collections.emptyList())).thenReturn(Collections.emptyList());
+
+            DocumentPageResponse result = documentService.getAccessibleDocuments(null, null);
+
+            assertThat(result.documents()).isEmpty();
+            assertThat(result.nextCursor()).isNull();
+        }
 
         @Test
-        @DisplayName("returns all documents when user is admin")
-        void returnsAllDocuments_whenAdmin() {
+        @DisplayName("returns a cursor pointing after the last document when more pages exist")
+        void returnsNextCursor_whenMorePagesExist() {
             UserContextHolder.setCurrentUser("admin");
-            List<Document> documents = List.of(buildDocument());
-            List<DocumentResponse> responses = List.of(buildDocumentResponse());
+            UUID lastOnPage = UUID.randomUUID();
+            DocumentSummaryView first = mock(DocumentSummaryView.class);
+            DocumentSummaryView second = mock(DocumentSummaryView.class);
+            DocumentSummaryView extra = mock(DocumentSummaryView.class);
 
+            when(second.getId()).thenReturn(lastOnPage);
             when(permissionService.isAdmin()).thenReturn(true);
-            when(documentRepository.findAll()).thenReturn(documents);
-            when(documentMapper.toResponseList(documents)).thenReturn(responses);
+            when(documentRepository.findPageAfter(DocumentCursor.START, 3)).thenReturn(List.of(first, second, extra));
+            when(documentMapper.toSummaryList(List.of(first, second)))
+                    .thenReturn(List.of(buildSummaryResponse(), buildSummaryResponse()));
 
-            List<DocumentResponse> result = documentService.getAllAccessibleDocuments();
+            DocumentPageResponse result = documentService.getAccessibleDocuments(null, null);
 
-            assertThat(result).hasSize(1);
-            verify(documentRepository).findAll();
-            verify(documentRepository, never()).findAllWithAccessList();
+            assertThat(result.documents()).hasSize(2);
+            assertThat(DocumentCursor.decode(result.nextCursor())).isEqualTo(lastOnPage);
         }
 
         @Test
-        @DisplayName("admin never calls findAllWithAccessList")
-        void adminNeverCallsFindAllWithAccessList() {
+        @DisplayName("continues after the id in the cursor and caps the page size")
+        void continuesAfterCursor_andCapsPageSize() {
             UserContextHolder.setCurrentUser("admin");
+            UUID lastSeen = UUID.randomUUID();
 
             when(permissionService.isAdmin()).thenReturn(true);
-            when(documentRepository.findAll()).thenReturn(Collections.emptyList());
-            when(documentMapper.toResponseList(any())).thenReturn(Collections.emptyList());
+            when(documentRepository.findPageAfter(lastSeen, 6)).thenReturn(Collections.emptyList());
+            when(documentMapper.toSummaryList(Collections.emptyList())).thenReturn(Collections.emptyList());
 
-            documentService.getAllAccessibleDocuments();
+            documentService.getAccessibleDocuments(DocumentCursor.encode(lastSeen), 1_000);
 
-            verify(documentRepository, never()).findAllWithAccessList();
+            verify(documentRepository).findPageAfter(lastSeen, 6);
+        }
+
+        @Test
+        @DisplayName("throws InvalidCursorException for a malformed cursor")
+        void throwsInvalidCursorException_forMalformedCursor() {
+            assertThatThrownBy(() -> documentService.getAccessibleDocuments("not-a-cursor", null))
+                    .isInstanceOf(InvalidCursorException.class);
+
+            verifyNoInteractions(documentRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("getDocumentContent()")
+    class GetDocumentContent {
+
+        @Test
+        @DisplayName("returns content when user has READ permission")
+        void returnsContent_whenUserHasReadPermission() {
+            UserContextHolder.setCurrentUser("user1");
+
+            when(documentRepository.findContentById(documentId, "user1"))
+                    .thenReturn(Optional.of(contentView(null, Permission.READ.getMask())));
+            when(permissionService.isAdmin()).thenReturn(false);
+
+            assertThat(documentService.getDocumentContent(documentId)).isEqualTo(storedContent);
+            verifyNoInteractions(contentStore);
+        }
+
+        @Test
+        @DisplayName("returns content to admin without a grant")
+        void returnsContent_whenAdmin() {
+            UserContextHolder.setCurrentUser("admin");
+
+            when(documentRepository.findContentById(documentId, "admin"))
+                    .thenReturn(Optional.of(contentView(null, 0)));
+            when(permissionService.isAdmin()).thenReturn(true);
+
+            assertThat(documentService.getDocumentContent(documentId)).isEqualTo(storedContent);
+        }
+
+        @Test
+        @DisplayName("moves a legacy body into the content store before serving it")
+        void storesLegacyContent_whenBlobMissing() {
+            UserContextHolder.setCurrentUser("admin");
+
+            when(documentRepository.findContentById(documentId, "admin"))
+                    .thenReturn(Optional.of(contentView("Content", 0)));
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(contentStore.exists(storedContent)).thenReturn(false);
+            when(contentStore.put("Content")).thenReturn(storedContent);
+
+            assertThat(documentService.getDocumentContent(documentId)).isEqualTo(storedContent);
+            verify(contentStore).put("Content");
+        }
+
+        @Test
+        @DisplayName("throws DocumentNotFoundException when document does not exist")
+        void throwsDocumentNotFoundException_whenDocumentNotFound() {
+            UserContextHolder.setCurrentUser("user1");
+
+            when(documentRepository.findContentById(documentId, "user1")).thenReturn(Optional.empty());
+
+            assertThatThrownBy(() -> documentService.getDocumentContent(documentId))
+                    .isInstanceOf(DocumentNotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("throws AccessDeniedException when user has no READ permission")
+        void throwsAccessDeniedException_whenNoReadPermission() {
+            UserContextHolder.setCurrentUser("user2");
+
+            when(documentRepository.findContentById(documentId, "user2"))
+                    .thenReturn(Optional.of(contentView("Content", Permission.DELETE.getMask())));
+            when(permissionService.isAdmin()).thenReturn(false);
+
+            assertThatThrownBy(() -> documentService.getDocumentContent(documentId))
+                    .isInstanceOf(AccessDeniedException.class)
+                    .hasMessage("You don't have READ permission on this document");
+        }
+
+        private DocumentContentView contentView(String content, int permissions) {
+            return new DocumentContentView() {
+                @Override
+                public String getHash() {
+                    return storedContent.hash();
+                }
+
+                @Override
+                public long getSize() {
+                    return storedContent.size();
+                }
+
+                @Override
+                public String getEncoding() {
+                    return storedContent.encoding().name();
+                }
+
+                @Override
+                public long getStoredSize() {
+                    return storedContent.storedSize();
+                }
+
+                @Override
+                public String getContent() {
+                    return content;
+                }
+
+                @Override
+                public int getPermissions() {
+                    return permissions;
+                }
+            };
         }
     }
 
@@ -175,17 +485,18 @@ class DocumentServiceImplTest {
         @DisplayName("returns document when user has READ permission")
         void returnsDocument_whenUserHasReadPermission() {
             UserContextHolder.setCurrentUser("user1");
-            Document document = buildDocument();
+            Document document = buildDocument("user1", Permission.READ.getMask());
             DocumentResponse response = buildDocumentResponse();
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.READ)).thenReturn(true);
+            when(documentRepository.findWithAccessListById(documentId)).thenReturn(Optional.of(document));
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentMapper.toETag(document)).thenReturn("\"v1\"");
             when(documentMapper.toResponse(document)).thenReturn(response);
 
-            DocumentResponse result = documentService.getDocumentById(documentId);
+            VersionedResponse<DocumentResponse> result = documentService.getDocumentById(documentId, null);
 
-            assertThat(result).isNotNull();
-            assertThat(result.id()).isEqualTo(documentId);
+            assertThat(result.etag()).isEqualTo("\"v1\"");
+            assertThat(result.body().id()).isEqualTo(documentId);
         }
 
         @Test
@@ -195,37 +506,56 @@ class DocumentServiceImplTest {
             Document document = buildDocument();
             DocumentResponse response = buildDocumentResponse();
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.READ)).thenReturn(true);
+            when(documentRepository.findWithAccessListById(documentId)).thenReturn(Optional.of(document));
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentMapper.toETag(document)).thenReturn("\"v1\"");
             when(documentMapper.toResponse(document)).thenReturn(response);
 
-            DocumentResponse result = documentService.getDocumentById(documentId);
+            VersionedResponse<DocumentResponse> result = documentService.getDocumentById(documentId, "\"v0\"");
 
-            assertThat(result).isNotNull();
+            assertThat(result.isNotModified()).isFalse();
+            assertThat(result.body()).isEqualTo(response);
+        }
+
+        @Test
+        @DisplayName("returns not modified without reading the body when the ETag matches")
+        void returnsNotModified_whenETagMatches() {
+            UserContextHolder.setCurrentUser("user1");
+            Document document = buildDocument("user1", Permission.READ.getMask());
+
+            when(documentRepository.findWithAccessListById(documentId)).thenReturn(Optional.of(document));
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentMapper.toETag(document)).thenReturn("\"v1\"");
+
+            VersionedResponse<DocumentResponse> result = documentService.getDocumentById(documentId, "\"v0\", W/\"v1\"");
+
+            assertThat(result.isNotModified()).isTrue();
+            assertThat(result.etag()).isEqualTo("\"v1\"");
+            verify(documentMapper, never()).toResponse(any());
         }
 
         @Test
         @DisplayName("throws DocumentNotFoundException when document does not exist")
         void throwsDocumentNotFoundException_whenDocumentNotFound() {
-            when(documentRepository.findById(documentId)).thenReturn(Optional.empty());
+            when(documentRepository.findWithAccessListById(documentId)).thenReturn(Optional.empty());
 
-            assertThatThrownBy(() -> documentService.getDocumentById(documentId))
+            assertThatThrownBy(() -> documentService.getDocumentById(documentId, null))
                     .isInstanceOf(DocumentNotFoundException.class)
                     .hasMessageContaining(documentId.toString());
 
-            verifyNoInteractions(permissionService);
+            verify(permissionService, never()).remember(any(), anyInt(), anyLong());
         }
 
         @Test
         @DisplayName("throws AccessDeniedException when user has no READ permission")
         void throwsAccessDeniedException_whenNoReadPermission() {
             UserContextHolder.setCurrentUser("user1");
-            Document document = buildDocument();
+            Document document = buildDocument("user1", Permission.DELETE.getMask());
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.READ)).thenReturn(false);
+            when(documentRepository.findWithAccessListById(documentId)).thenReturn(Optional.of(document));
+            when(permissionService.isAdmin()).thenReturn(false);
 
-            assertThatThrownBy(() -> documentService.getDocumentById(documentId))
+            assertThatThrownBy(() -> documentService.getDocumentById(documentId, null))
                     .isInstanceOf(AccessDeniedException.class)
                     .hasMessage("You don't have READ permission on this document");
 
@@ -233,19 +563,59 @@ class DocumentServiceImplTest {
         }
 
         @Test
-        @DisplayName("never maps response when permission check fails")
-        void neverMapsResponse_whenPermissionFails() {
-            UserContextHolder.setCurrentUser("user1");
-            Document document = buildDocument();
+        @DisplayName("answers from the fetched access list without a separate permission query")
+        void answersFromFetchedAccessList() {
+            UserContextHolder.setCurrentUser("user2");
+            Document document = buildDocument("user1", Permission.READ.getMask());
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.READ)).thenReturn(false);
+            when(documentRepository.findWithAccessListById(documentId)).thenReturn(Optional.of(document));
+            when(permissionService.isAdmin()).thenReturn(false);
 
-            assertThatThrownBy(() -> documentService.getDocumentById(documentId))
+            assertThatThrownBy(() -> documentService.getDocumentById(documentId, null))
                     .isInstanceOf(AccessDeniedException.class);
 
             verify(documentMapper, never()).toResponse(any());
         }
+
+        @Test
+        @DisplayName("remembers the permissions read with the document for later checks")
+        void remembersPermissionsReadWithDocument() {
+            UserContextHolder.setCurrentUser("user1");
+            Document document = buildDocument("user1", Permission.READ.getMask());
+
+            when(permissionService.beginLookup()).thenReturn(7L);
+            when(documentRepository.findWithAccessListById(documentId)).thenReturn(Optional.of(document));
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentMapper.toETag(document)).thenReturn("\"v1\"");
+            when(documentMapper.toResponse(document)).thenReturn(buildDocumentResponse());
+
+            documentService.getDocumentById(documentId, null);
+
+            verify(permissionService).remember(documentId, Permission.READ.getMask(), 7L);
+        }
+
+        @Test
+        @DisplayName("denies a known denial without loading the document")
+        void deniesKnownDenial_withoutLoadingDocument() {
+            when(permissionService.isKnownDenied(documentId, Permission.READ)).thenReturn(true);
+            when(documentRepository.existsById(documentId)).thenReturn(true);
+
+            assertThatThrownBy(() -> documentService.getDocumentById(documentId, null))
+                    .isInstanceOf(AccessDeniedException.class)
+                    .hasMessage("You don't have READ permission on this document");
+
+            verify(documentRepository, never()).findWithAccessListById(any());
+        }
+
+        @Test
+        @DisplayName("still reports a missing document as not found on a known denial")
+        void reportsNotFound_onKnownDenialOfMissingDocument() {
+            when(permissionService.isKnownDenied(documentId, Permission.READ)).thenReturn(true);
+            when(documentRepository.existsById(documentId)).thenReturn(false);
+
+            assertThatThrownBy(() -> documentService.getDocumentById(documentId, null))
+                    .isInstanceOf(DocumentNotFoundException.class);
+        }
     }
 
     @Nested
@@ -256,71 +626,108 @@ class DocumentServiceImplTest {
         @DisplayName("deletes document when user has DELETE permission")
         void deletesDocument_whenUserHasDeletePermission() {
             UserContextHolder.setCurrentUser("user2");
-            Document document = buildDocument();
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.DELETE)).thenReturn(true);
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentRepository.deleteIfPermitted(documentId, "user2", false, Permission.DELETE))
+                    .thenReturn(deletionOutcome(true, true, "user1", "user2"));
 
             documentService.deleteDocument(documentId);
 
-            verify(documentRepository).deleteById(documentId);
+            verify(eventPublisher).publishEvent(new DocumentDeletedEvent(documentId, List.of("user1", "user2")));
         }
 
         @Test
         @DisplayName("deletes document when user is admin")
         void deletesDocument_whenAdmin() {
             UserContextHolder.setCurrentUser("admin");
-            Document document = buildDocument();
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.DELETE)).thenReturn(true);
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentRepository.deleteIfPermitted(documentId, "admin", true, Permission.DELETE))
+                    .thenReturn(deletionOutcome(true, true));
 
             documentService.deleteDocument(documentId);
 
-            verify(documentRepository).deleteById(documentId);
+            verify(documentRepository).deleteIfPermitted(documentId, "admin", true, Permission.DELETE);
         }
 
         @Test
         @DisplayName("throws DocumentNotFoundException when document does not exist")
         void throwsDocumentNotFoundException_whenDocumentNotFound() {
-            when(documentRepository.findById(documentId)).thenReturn(Optional.empty());
+            UserContextHolder.setCurrentUser("admin");
+
+            when(permissionService.isAdmin()).thenReturn(true);
+            when(documentRepository.deleteIfPermitted(documentId, "admin", true, Permission.DELETE))
+                    .thenReturn(deletionOutcome(false, false));
 
             assertThatThrownBy(() -> documentService.deleteDocument(documentId))
                     .isInstanceOf(DocumentNotFoundException.class)
                     .hasMessageContaining(documentId.toString());
 
-            verify(documentRepository, never()).deleteById(any());
+            verifyNoInteractions(eventPublisher);
         }
 
         @Test
         @DisplayName("throws AccessDeniedException when user has no DELETE permission")
         void throwsAccessDeniedException_whenNoDeletePermission() {
             UserContextHolder.setCurrentUser("user1");
-            Document document = buildDocument();
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.DELETE)).thenReturn(false);
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentRepository.deleteIfPermitted(documentId, "user1", false, Permission.DELETE))
+                    .thenReturn(deletionOutcome(true, false));
 
             assertThatThrownBy(() -> documentService.deleteDocument(documentId))
                     .isInstanceOf(AccessDeniedException.class)
                     .hasMessage("You don't have DELETE permission on this document");
 
-            verify(documentRepository, never()).deleteById(any());
+            verifyNoInteractions(eventPublisher);
         }
 
         @Test
-        @DisplayName("never deletes when permission check fails")
-        void neverDeletes_whenPermissionFails() {
-            UserContextHolder.setCurrentUser("user1");
-            Document document = buildDocument();
+        @DisplayName("never loads the document before deleting")
+        void neverLoadsDocument() {
+            UserContextHolder.setCurrentUser("user2");
+
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentRepository.deleteIfPermitted(documentId, "user2", false, Permission.DELETE))
+                    .thenReturn(deletionOutcome(true, true));
+
+            documentService.deleteDocument(documentId);
 
-            when(documentRepository.findById(documentId)).thenReturn(Optional.of(document));
-            when(permissionService.hasPermission(documentId, Permission.DELETE)).thenReturn(false);
+            verify(documentRepository, never()).findById(any());
+            verify(documentRepository, never()).deleteById(any());
+        }
+
+        @Test
+        @DisplayName("skips the delete statement on a known denial")
+        void skipsDelete_onKnownDenial() {
+            when(permissionService.isKnownDenied(documentId, Permission.DELETE)).thenReturn(true);
+            when(documentRepository.existsById(documentId)).thenReturn(true);
 
             assertThatThrownBy(() -> documentService.deleteDocument(documentId))
-                    .isInstanceOf(AccessDeniedException.class);
+                    .isInstanceOf(AccessDeniedException.class)
+                    .hasMessage("You don't have DELETE permission on this document");
 
-            verify(documentRepository, never()).deleteById(any());
+            verify(documentRepository, never()).deleteIfPermitted(any(), any(), anyBoolean(), any());
+            verifyNoInteractions(eventPublisher);
+        }
+
+        private DocumentRepository.DeletionOutcome deletionOutcome(boolean found, boolean deleted, String... grantees) {
+            return new DocumentRepository.DeletionOutcome() {
+                @Override
+                public boolean isFound() {
+                    return found;
+                }
+
+                @Override
+                public boolean isDeleted() {
+                    return deleted;
+                }
+
+                @Override
+                public String[] getGrantees() {
+                    return grantees.length == 0 ? null : grantees;
+                }
+            };
         }
     }
 
@@ -396,6 +803,24 @@ class DocumentServiceImplTest {
                     .findAllByIdInAndAccessListUsernameAndAccessListPermission(any(), any(), any());
         }
 
+        @Test
+        @DisplayName("answers from the access index without querying when it is ready")
+        void answersFromAccessIndex_whenReady() {
+            UserContextHolder.setCurrentUser("user1");
+            UUID accessibleId = UUID.randomUUID();
+            List<UUID> requestedIds = List.of(accessibleId, UUID.randomUUID());
+            BatchAccessRequest request = new BatchAccessRequest(Permission.READ, requestedIds);
+
+            when(permissionService.isAdmin()).thenReturn(false);
+            when(documentAccessIndex.findAccessible("user1", Permission.READ, requestedIds))
+                    .thenReturn(Optional.of(List.of(accessibleId)));
+
+            BatchAccessResponse result = documentService.batchAccessCheck(request);
+
+            assertThat(result.accessibleIds()).containsExactly(accessibleId);
+            verifyNoInteractions(documentRepository);
+        }
+
         @Test
         @DisplayName("checks correct permission type in batch check")
         void checksCorrectPermissionType() {
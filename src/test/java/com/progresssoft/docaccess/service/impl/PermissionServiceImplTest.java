@@ -1,29 +1,46 @@
 package com.progresssoft.docaccess.service.impl;
 
+import com.progresssoft.docaccess.cache.NegativeLookupFilter;
+import com.progresssoft.docaccess.cache.NegativeLookupProperties;
+import com.progresssoft.docaccess.cache.PermissionCacheProperties;
+import com.progresssoft.docaccess.cache.PermissionDecisionCache;
 import com.progresssoft.docaccess.enums.Permission;
-import com.progresssoft.docaccess.repository.DocumentAccessRepository;
+import com.progresssoft.docaccess.replica.ReplicaReads;
 import com.progresssoft.docaccess.security.UserContextHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
-import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.verifyNoInteractions;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.doReturn;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("PermissionService tests")
 class PermissionServiceImplTest {
 
-    @Mock
-    private DocumentAccessRepository documentAccessRepository;
+    @Spy
+    private PermissionDecisionCache permissionDecisionCache = new PermissionDecisionCache(
+            new PermissionCacheProperties(true, 100, Duration.ofMinutes(1)),
+            new SimpleMeterRegistry()
+    );
+    // not rebuilt, so it answers "maybe" until a test says otherwise
+    @Spy
+    private NegativeLookupFilter negativeLookupFilter = new NegativeLookupFilter(
+            new NegativeLookupProperties(true, 1000, 0.01),
+            null,
+            null,
+            new SimpleMeterRegistry()
+    );
     @InjectMocks
     private PermissionServiceImpl sut;
 
@@ -55,118 +72,50 @@ class PermissionServiceImplTest {
     }
 
     @Nested
-    @DisplayName("hasPermission()")
-    class HasPermission {
-        @Test
-        @DisplayName("returns true for admin without checking repository")
-        void returnsTrue_forAdmin_withoutCheckingRepository() {
-            UserContextHolder.setCurrentUser("admin");
-            boolean result = sut.hasPermission(documentId, Permission.READ);
-            assertThat(result).isTrue();
-            verifyNoInteractions(documentAccessRepository);
-        }
-
-        @Test
-        @DisplayName("returns true when user has the permission")
-        void returnsTrue_whenUserHasPermission() {
-            UserContextHolder.setCurrentUser("user1");
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.READ
-            )).thenReturn(true);
-
-            boolean result = sut.hasPermission(documentId, Permission.READ);
-
-            assertThat(result).isTrue();
-        }
-
-        @Test
-        @DisplayName("returns false when user does not have the permission")
-        void returnsFalse_whenUserDoesNotHavePermission() {
-            UserContextHolder.setCurrentUser("user1");
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.DELETE
-            )).thenReturn(false);
-
-            boolean result = sut.hasPermission(documentId, Permission.DELETE);
-
-            assertThat(result).isFalse();
-        }
-
-        @Test
-        @DisplayName("checks all permission types correctly")
-        void checksAllPermissionTypes() {
-            UserContextHolder.setCurrentUser("user1");
-
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.READ)).thenReturn(true);
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.WRITE)).thenReturn(true);
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.DELETE)).thenReturn(false);
-
-            assertThat(sut.hasPermission(documentId, Permission.READ)).isTrue();
-            assertThat(sut.hasPermission(documentId, Permission.WRITE)).isTrue();
-            assertThat(sut.hasPermission(documentId, Permission.DELETE)).isFalse();
-        }
-
-    }
-
-    @Nested
-    @DisplayName("canGrant()")
-    class CanGrant {
+    @DisplayName("isKnownDenied()")
+    class IsKnownDenied {
 
         @Test
-        @DisplayName("returns true for admin without checking repository")
-        void returnsTrue_forAdmin() {
+        @DisplayName("is never true for admin")
+        void isFalse_forAdmin() {
             UserContextHolder.setCurrentUser("admin");
 
-            boolean result = sut.canGrant(documentId);
-
-            assertThat(result).isTrue();
-            verifyNoInteractions(documentAccessRepository);
+            assertThat(sut.isKnownDenied(documentId, Permission.DELETE)).isFalse();
         }
 
         @Test
-        @DisplayName("returns true when user has WRITE permission")
-        void returnsTrue_whenUserHasWritePermission() {
+        @DisplayName("is true when the filter rules the grant out")
+        void isTrue_whenFilterRulesGrantOut() {
             UserContextHolder.setCurrentUser("user1");
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.WRITE
-            )).thenReturn(true);
+            doReturn(false).when(negativeLookupFilter).mightBeGranted("user1", documentId, Permission.READ);
 
-            boolean result = sut.canGrant(documentId);
-
-            assertThat(result).isTrue();
+            assertThat(sut.isKnownDenied(documentId, Permission.READ)).isTrue();
         }
 
         @Test
-        @DisplayName("returns false when user has only READ permission")
-        void returnsFalse_whenUserHasOnlyReadPermission() {
+        @DisplayName("answers from remembered permissions without a query")
+        void answersFromRememberedPermissions() {
             UserContextHolder.setCurrentUser("user1");
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user1", Permission.WRITE
-            )).thenReturn(false);
+            assertThat(sut.isKnownDenied(documentId, Permission.DELETE)).isFalse();
 
-            boolean result = sut.canGrant(documentId);
+            sut.remember(documentId, Permission.READ.getMask(), sut.beginLookup());
 
-            assertThat(result).isFalse();
+            assertThat(sut.isKnownDenied(documentId, Permission.DELETE)).isTrue();
+            assertThat(sut.isKnownDenied(documentId, Permission.READ)).isFalse();
         }
 
         @Test
-        @DisplayName("returns false when user has no permissions at all")
-        void returnsFalse_whenUserHasNoPermissions() {
-            UserContextHolder.setCurrentUser("user3");
-            when(documentAccessRepository.existsByDocumentIdAndUsernameAndPermission(
-                    documentId, "user3", Permission.WRITE
-            )).thenReturn(false);
-
-            boolean result = sut.canGrant(documentId);
-
-            assertThat(result).isFalse();
+        @DisplayName("does not remember permissions read from a replica")
+        void doesNotRememberReplicaReads() {
+            UserContextHolder.setCurrentUser("user1");
+            TransactionSynchronizationManager.bindResource(ReplicaReads.class, Boolean.TRUE);
+            try {
+                sut.remember(documentId, Permission.READ.getMask(), sut.beginLookup());
+            } finally {
+                TransactionSynchronizationManager.unbindResource(ReplicaReads.class);
+            }
+
+            assertThat(sut.isKnownDenied(documentId, Permission.DELETE)).isFalse();
         }
-
     }
-
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.progresssoft.docaccess.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ByteRange Tests")
+class ByteRangeTest {
+
+    @Test
+    @DisplayName("resolves closed, open-ended and suffix ranges against the size")
+    void resolvesRanges() {
+        assertThat(ByteRange.parse("bytes=0-9", 100)).isEqualTo(new ByteRange(0, 9));
+        assertThat(ByteRange.parse("bytes=90-", 100)).isEqualTo(new ByteRange(90, 99));
+        assertThat(ByteRange.parse("bytes=-10", 100)).isEqualTo(new ByteRange(90, 99));
+        assertThat(ByteRange.parse("bytes=50-500", 100)).isEqualTo(new ByteRange(50, 99));
+        assertThat(ByteRange.parse("bytes=-500", 100)).isEqualTo(new ByteRange(0, 99));
+    }
+
+    @Test
+    @DisplayName("reports ranges starting past the end as unsatisfiable")
+    void reportsUnsatisfiableRanges() {
+        assertThat(ByteRange.parse("bytes=100-", 100)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.parse("bytes=-0", 100)).isSameAs(ByteRange.UNSATISFIABLE);
+    }
+
+    @Test
+    @DisplayName("ignores malformed, non-byte and multi-range headers")
+    void ignoresUnsupportedHeaders() {
+        assertThat(ByteRange.parse(null, 100)).isNull();
+        assertThat(ByteRange.parse("items=0-9", 100)).isNull();
+        assertThat(ByteRange.parse("bytes=0-9,20-29", 100)).isNull();
+        assertThat(ByteRange.parse("bytes=9-0", 100)).isNull();
+        assertThat(ByteRange.parse("bytes=a-b", 100)).isNull();
+    }
+}
@@ -0,0 +1,161 @@
+package com.progresssoft.docaccess.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ContentDelivery Tests")
+class ContentDeliveryTest {
+
+    @TempDir
+    Path root;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final String body = "compressible text\n".repeat(200);
+    private FileSystemContentStore store;
+    private ContentDelivery delivery;
+    private StoredContent compressed;
+
+    @BeforeEach
+    void setUp() {
+        ContentCompressionMetrics metrics = new ContentCompressionMetrics(meterRegistry);
+        store = new FileSystemContentStore(new ContentStoreProperties("filesystem", root, false), metrics);
+        delivery = new ContentDelivery(store, metrics);
+        compressed = store.put(body, new CompressionPolicy(ContentEncoding.GZIP, 6, 0));
+    }
+
+    @Test
+    @DisplayName("sends the stored gzip bytes as is when the client accepts gzip")
+    void sendsPrecompressedBytes_whenGzipAccepted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "br, gzip;q=0.8");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(compressed, request, response);
+
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getHeader("Vary")).isEqualTo("Accept-Encoding");
+        assertThat(response.getContentLengthLong()).isEqualTo(compressed.storedSize());
+        try (var input = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+        }
+        assertThat(meterRegistry.find("docaccess.content.compression.cpu").tag("operation", "decompress").timer())
+                .isNull();
+    }
+
+    @Test
+    @DisplayName("decodes the body for clients that do not accept its encoding")
+    void decodesBody_whenGzipNotAccepted() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip;q=0, identity");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(compressed, request, response);
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentLengthLong()).isEqualTo(compressed.size());
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo(body);
+        assertThat(meterRegistry.get("docaccess.content.compression.cpu").tag("operation", "decompress").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("hands the blob to sendfile when the connector supports it")
+    void usesSendfile_whenSupported() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        request.setAttribute(ContentDelivery.SENDFILE_SUPPORTED, Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(compressed, request, response);
+
+        assertThat(request.getAttribute(ContentDelivery.SENDFILE_FILENAME))
+                .isEqualTo(store.localPath(compressed).orElseThrow().toString());
+        assertThat(request.getAttribute(ContentDelivery.SENDFILE_END)).isEqualTo(compressed.storedSize());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("answers If-None-Match with 304 and no body")
+    void returnsNotModified_whenETagMatches() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("If-None-Match", "\"" + compressed.hash() + "\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(compressed, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getHeader("ETag")).isEqualTo("\"" + compressed.hash() + "\"");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("serves a single range of the decoded body")
+    void servesRange() throws Exception {
+        StoredContent plain = store.put("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(plain, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes 2-5/10");
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("2345");
+    }
+
+    @Test
+    @DisplayName("serves ranges of a compressed body decoded, without Content-Encoding")
+    void servesRangeOfCompressedBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip");
+        request.addHeader("Range", "bytes=-18");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(compressed, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("compressible text\n");
+    }
+
+    @Test
+    @DisplayName("sends the whole body when If-Range names another version")
+    void ignoresRange_whenIfRangeStale() throws Exception {
+        StoredContent plain = store.put("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=2-5");
+        request.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(plain, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("0123456789");
+    }
+
+    @Test
+    @DisplayName("rejects a range past the end with 416")
+    void rejectsUnsatisfiableRange() throws Exception {
+        StoredContent plain = store.put("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Range", "bytes=10-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        delivery.deliver(plain, request, response);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader("Content-Range")).isEqualTo("bytes */10");
+    }
+}
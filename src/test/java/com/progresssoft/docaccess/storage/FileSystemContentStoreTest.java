@@ -0,0 +1,171 @@
+package com.progresssoft.docaccess.storage;
+
+import com.progresssoft.docaccess.util.Digests;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("FileSystemContentStore Tests")
+class FileSystemContentStoreTest {
+
+    @TempDir
+    Path root;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CompressionPolicy gzip = new CompressionPolicy(ContentEncoding.GZIP, 6, 64);
+    private FileSystemContentStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new FileSystemContentStore(
+                new ContentStoreProperties("filesystem", root, false),
+                new ContentCompressionMetrics(meterRegistry)
+        );
+    }
+
+    @Test
+    @DisplayName("addresses a body by the SHA-256 of its UTF-8 bytes")
+    void addressesBodyByHash() {
+        StoredContent stored = store.put("héllo");
+
+        assertThat(stored.hash()).isEqualTo(Digests.sha256Hex("héllo"));
+        assertThat(stored.size()).isEqualTo("héllo".getBytes(StandardCharsets.UTF_8).length);
+        assertThat(store.exists(stored)).isTrue();
+        assertThat(store.readString(stored)).isEqualTo("héllo");
+        assertThat(store.localPath(stored))
+                .hasValue(root.resolve(stored.hash().substring(0, 2))
+                        .resolve(stored.hash().substring(2, 4))
+                        .resolve(stored.hash()));
+    }
+
+    @Test
+    @DisplayName("keeps one copy of a body stored twice and leaves no temp files")
+    void deduplicatesBodies() throws Exception {
+        StoredContent first = store.put("same body");
+        StoredContent second = store.put("same body");
+
+        assertThat(second).isEqualTo(first);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("copies the body to a channel")
+    void transfersBodyToChannel() throws Exception {
+        StoredContent stored = store.put("channel body");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = store.transferTo(stored, Channels.newChannel(output));
+
+        assertThat(written).isEqualTo(stored.size());
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("channel body");
+    }
+
+    @Test
+    @DisplayName("reports a missing body and rejects values that are not hashes")
+    void rejectsMissingAndInvalidHashes() {
+        StoredContent missing = new StoredContent(Digests.sha256Hex("never stored"), 12);
+
+        assertThat(store.exists(missing)).isFalse();
+        assertThat(store.localPath(missing)).isEmpty();
+        assertThatThrownBy(() -> store.open(missing)).isInstanceOf(NoSuchFileException.class);
+        assertThatThrownBy(() -> store.exists(new StoredContent("../../etc/passwd", 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("compresses bodies at or above the threshold and records the bytes saved")
+    void compressesLargeBodies() throws Exception {
+        String body = "line of text\n".repeat(100);
+
+        StoredContent stored = store.put(body, gzip);
+
+        assertThat(stored.encoding()).isEqualTo(ContentEncoding.GZIP);
+        assertThat(stored.hash()).isEqualTo(Digests.sha256Hex(body));
+        assertThat(stored.storedSize()).isLessThan(stored.size());
+        assertThat(store.localPath(stored).orElseThrow().toString()).endsWith(".gz");
+        assertThat(store.readString(stored)).isEqualTo(body);
+        try (var raw = new GZIPInputStream(store.openRaw(stored))) {
+            assertThat(new String(raw.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(body);
+        }
+        assertThat(meterRegistry.get("docaccess.content.compression.saved").counter().count())
+                .isEqualTo(stored.size() - stored.storedSize());
+        assertThat(meterRegistry.get("docaccess.content.compression.cpu").tag("operation", "compress").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("writes a compressed body once, leaving only the compressed blob")
+    void writesCompressedBodyOnce() throws Exception {
+        StoredContent stored = store.put("line of text\n".repeat(100), gzip);
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).containsExactly(store.localPath(stored).orElseThrow());
+        }
+    }
+
+    @Test
+    @DisplayName("keeps a blob another writer already stored and reports its size")
+    void keepsExistingBlob() throws Exception {
+        String body = "line of text\n".repeat(100);
+        String hash = Digests.sha256Hex(body);
+        Path existing = root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".gz");
+        Files.createDirectories(existing.getParent());
+        byte[] existingBytes = "stored first".getBytes(StandardCharsets.UTF_8);
+        Files.write(existing, existingBytes);
+
+        StoredContent stored = store.put(body, gzip);
+
+        assertThat(stored.storedSize()).isEqualTo(existingBytes.length);
+        assertThat(Files.readAllBytes(existing)).isEqualTo(existingBytes);
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).containsExactly(existing);
+        }
+    }
+
+    @Test
+    @DisplayName("keeps incompressible bodies above the threshold as they are")
+    void keepsIncompressibleBodiesUncompressed() throws Exception {
+        byte[] body = new byte[4096];
+        new Random(42).nextBytes(body);
+
+        StoredContent stored = store.put(new ByteArrayInputStream(body), gzip);
+
+        assertThat(stored.encoding()).isEqualTo(ContentEncoding.IDENTITY);
+        assertThat(stored.hash()).isEqualTo(HexFormat.of().formatHex(Digests.sha256().digest(body)));
+        try (var input = store.open(stored)) {
+            assertThat(input.readAllBytes()).isEqualTo(body);
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+        }
+    }
+
+    @Test
+    @DisplayName("stores bodies below the threshold uncompressed")
+    void keepsSmallBodiesUncompressed() {
+        StoredContent stored = store.put("short", gzip);
+
+        assertThat(stored.encoding()).isEqualTo(ContentEncoding.IDENTITY);
+        assertThat(stored.storedSize()).isEqualTo(stored.size());
+        assertThat(meterRegistry.find("docaccess.content.compression.cpu").timer()).isNull();
+    }
+}
@@ -0,0 +1,20 @@
+package com.progresssoft.docaccess.support;
+
+import java.util.concurrent.TimeUnit;
+
+public final class Threads {
+
+    private Threads() {
+    }
+
+    /** Waits until {@code thread} is parked, e.g. on a lock another thread holds, or has finished. */
+    public static void awaitBlockedOrDone(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TERMINATED) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError(thread + " neither blocked nor finished");
+            }
+            Thread.sleep(1);
+        }
+    }
+}
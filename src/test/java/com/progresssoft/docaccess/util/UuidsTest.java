@@ -0,0 +1,44 @@
+package com.progresssoft.docaccess.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Uuids Tests")
+class UuidsTest {
+
+    // bytewise, as PostgreSQL orders uuid columns
+    private static final Comparator<UUID> UNSIGNED = Comparator
+            .comparing((UUID uuid) -> uuid.getMostSignificantBits(), Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    @Test
+    @DisplayName("generates RFC 9562 version 7 ids carrying the current unix millis")
+    void generatesVersion7() {
+        long before = System.currentTimeMillis();
+        UUID uuid = Uuids.timeOrdered();
+        long after = System.currentTimeMillis();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        // a burst of more than 4096 ids per millisecond borrows the next millisecond, hence the slack
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after + 100);
+    }
+
+    @Test
+    @DisplayName("never goes backwards, even within one millisecond")
+    void isMonotonic() {
+        List<UUID> generated = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            generated.add(Uuids.timeOrdered());
+        }
+
+        assertThat(generated).isSortedAccordingTo(UNSIGNED).doesNotHaveDuplicates();
+    }
+}